@@ -0,0 +1,27 @@
+package com.example.asmproject.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Cấu hình JDBC batching cho Hibernate
+ * Gom các INSERT/UPDATE cùng loại (ví dụ order_items khi đặt hàng) thành một batch
+ * thay vì gửi từng câu lệnh một tới SQL Server.
+ * Có thể ghi đè bằng app.jpa.batch-size trong application.properties.
+ */
+@Configuration
+public class HibernateBatchConfig implements HibernatePropertiesCustomizer {
+
+    @Value("${app.jpa.batch-size:50}")
+    private int batchSize;
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.putIfAbsent("hibernate.jdbc.batch_size", batchSize);
+        hibernateProperties.putIfAbsent("hibernate.order_inserts", true);
+        hibernateProperties.putIfAbsent("hibernate.order_updates", true);
+    }
+}
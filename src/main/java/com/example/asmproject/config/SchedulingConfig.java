@@ -0,0 +1,12 @@
+package com.example.asmproject.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Bật các tác vụ định kỳ (@Scheduled), ví dụ dọn Idempotency-Key đã hết hạn
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -84,8 +84,11 @@ public class SecurityConfig {
                 // API Locations - public cho tất cả
                 .requestMatchers("/api/locations/**").permitAll()
                 
+                // API Stations - public cho bản đồ trạm sạc
+                .requestMatchers("/api/stations", "/api/stations/**").permitAll()
+                
                 // API Vouchers - public cho xem danh sách và validate
-                .requestMatchers("/api/vouchers/available", "/api/vouchers/code/**").permitAll()
+                .requestMatchers("/api/vouchers/available", "/api/vouchers/best", "/api/vouchers/code/**").permitAll()
                 
                 // API Reviews - public cho xem, authenticated cho tạo
                 .requestMatchers("/api/reviews/product/**").permitAll()
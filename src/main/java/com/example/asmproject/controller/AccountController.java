@@ -1,11 +1,14 @@
 package com.example.asmproject.controller;
 
+import com.example.asmproject.dto.OrderHistoryResponse;
 import com.example.asmproject.model.Address;
 import com.example.asmproject.model.User;
 import com.example.asmproject.repository.UserRepository;
 import com.example.asmproject.service.AddressService;
+import com.example.asmproject.service.OrderHistoryService;
 import com.example.asmproject.util.SecurityUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -304,11 +307,14 @@ public class AccountController {
     @Autowired
     private com.example.asmproject.service.OrderService orderService;
 
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
     /**
      * Trang danh sách đơn hàng của tôi
      */
     @GetMapping("/tai-khoan/don-hang")
-    public String hienThiDonHang(Model model) {
+    public String hienThiDonHang(Model model, @RequestParam(defaultValue = "0") int page) {
         Optional<User> userOpt = securityUtil.getCurrentUser();
 
         if (!userOpt.isPresent()) {
@@ -319,9 +325,11 @@ public class AccountController {
         model.addAttribute("user", user);
         model.addAttribute("trangDangChon", "tai-khoan");
 
-        // Lấy danh sách đơn hàng
-        List<com.example.asmproject.model.Order> orders = orderService.getUserOrders(user.getId());
-        model.addAttribute("orders", orders);
+        // Lấy một trang đơn hàng (projection, trang đầu được cache)
+        Page<OrderHistoryResponse> orderPage = orderHistoryService.getOrderHistory(user.getId(),
+                Math.max(page, 0), OrderHistoryService.DEFAULT_PAGE_SIZE);
+        model.addAttribute("orders", orderPage.getContent());
+        model.addAttribute("orderPage", orderPage);
 
         return "tai-khoan-don-hang";
     }
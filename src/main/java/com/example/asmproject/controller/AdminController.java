@@ -14,11 +14,10 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -55,22 +54,27 @@ public class AdminController {
     @Autowired
     private ConfigurationService configurationService;
 
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private DailySalesService dailySalesService;
+
     @GetMapping
     public String hienThiDashboard(Model model) {
         model.addAttribute(SECTION_KEY, "dashboard");
 
         // Statistics for dashboard
-        long totalOrders = orderService.countOrdersByStatus(null);
-        long pendingOrders = orderService.countOrdersByStatus(Order.OrderStatus.PENDING);
-        long deliveredOrders = orderService.countOrdersByStatus(Order.OrderStatus.DELIVERED);
-        long totalProducts = productService.getTotalActiveProducts();
-        long outOfStockProducts = productService.getTotalOutOfStockProducts();
+        // Số đơn theo mọi trạng thái: một truy vấn GROUP BY, cache vài giây
+        Map<Order.OrderStatus, Long> statusCounts = dashboardStatsService.getOrderStatusCounts();
+        long totalOrders = dashboardStatsService.countOrders(null);
+        long pendingOrders = statusCounts.get(Order.OrderStatus.PENDING);
+        long deliveredOrders = statusCounts.get(Order.OrderStatus.DELIVERED);
+        long totalProducts = dashboardStatsService.countActiveProducts();
+        long outOfStockProducts = dashboardStatsService.countOutOfStockProducts();
         long totalUsers = userService.getTotalUsers();
         long activeVouchers = voucherService.getActiveVoucherCount();
 
-        LocalDateTime lastWeek = LocalDateTime.now().minusDays(7);
-        double totalRevenue = orderService.getTotalRevenue(lastWeek).doubleValue();
-
         model.addAttribute("totalOrders", totalOrders);
         model.addAttribute("pendingOrders", pendingOrders);
         model.addAttribute("deliveredOrders", deliveredOrders);
@@ -78,43 +82,16 @@ public class AdminController {
         model.addAttribute("outOfStockProducts", outOfStockProducts);
         model.addAttribute("totalUsers", totalUsers);
         model.addAttribute("activeVouchers", activeVouchers);
-        model.addAttribute("totalRevenue", totalRevenue);
-
-        // Chart Data: Revenue last 7 days
-        List<String> revenueLabels = new ArrayList<>();
-        List<Double> revenueData = new ArrayList<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM");
-
-        // Initialize map with 0 for last 7 days
-        Map<String, Double> dailyRevenue = new LinkedHashMap<>();
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusDays(i);
-            dailyRevenue.put(date.format(formatter), 0.0);
-        }
-
-        // Fetch delivered orders in last 7 days
-        List<Order> recentOrders = orderRepository.findByOrderStatusAndCreatedAtAfter(
-                Order.OrderStatus.DELIVERED, LocalDateTime.now().minusDays(7));
-
-        for (Order order : recentOrders) {
-            String dateKey = order.getCreatedAt().format(formatter);
-            if (dailyRevenue.containsKey(dateKey)) {
-                dailyRevenue.put(dateKey, dailyRevenue.get(dateKey) + order.getTotal().doubleValue());
-            }
-        }
-
-        revenueLabels.addAll(dailyRevenue.keySet());
-        revenueData.addAll(dailyRevenue.values());
 
-        model.addAttribute("revenueLabels", revenueLabels);
-        model.addAttribute("revenueData", revenueData);
+        // Doanh thu + biểu đồ 7 ngày gần nhất (từ bảng tổng hợp daily_sales)
+        themDoanhThu7Ngay(model);
 
         // Chart Data: Order Status
         List<Long> orderStatusData = List.of(
                 pendingOrders,
-                orderService.countOrdersByStatus(Order.OrderStatus.SHIPPING),
+                statusCounts.get(Order.OrderStatus.SHIPPING),
                 deliveredOrders,
-                orderService.countOrdersByStatus(Order.OrderStatus.CANCELLED));
+                statusCounts.get(Order.OrderStatus.CANCELLED));
         model.addAttribute("orderStatusData", orderStatusData);
 
         // Recent Orders
@@ -469,46 +446,25 @@ public class AdminController {
         model.addAttribute(SECTION_KEY, "bao-cao");
 
         // Calculate statistics
-        long totalOrders = orderService.countOrdersByStatus(null);
-        long totalProducts = productService.getTotalActiveProducts();
+        // Dùng chung bộ đếm (một truy vấn GROUP BY, có cache) với dashboard
+        long totalOrders = dashboardStatsService.countOrders(null);
+        long totalProducts = dashboardStatsService.countActiveProducts();
         long totalUsers = userService.getTotalUsers();
 
-        LocalDateTime lastWeek = LocalDateTime.now().minusDays(7);
-        double totalRevenue = orderService.getTotalRevenue(lastWeek).doubleValue();
-
         model.addAttribute("totalOrders", totalOrders);
         model.addAttribute("totalProducts", totalProducts);
         model.addAttribute("totalUsers", totalUsers);
-        model.addAttribute("totalRevenue", totalRevenue);
 
-        // Chart Data: Revenue last 7 days
-        List<String> revenueLabels = new ArrayList<>();
-        List<Double> revenueData = new ArrayList<>();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM");
-        Map<String, Double> dailyRevenue = new LinkedHashMap<>();
-        for (int i = 6; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusDays(i);
-            dailyRevenue.put(date.format(formatter), 0.0);
-        }
-        List<Order> recentOrders = orderRepository.findByOrderStatusAndCreatedAtAfter(
-                Order.OrderStatus.DELIVERED, LocalDateTime.now().minusDays(7));
-        for (Order order : recentOrders) {
-            String dateKey = order.getCreatedAt().format(formatter);
-            if (dailyRevenue.containsKey(dateKey)) {
-                dailyRevenue.put(dateKey, dailyRevenue.get(dateKey) + order.getTotal().doubleValue());
-            }
-        }
-        revenueLabels.addAll(dailyRevenue.keySet());
-        revenueData.addAll(dailyRevenue.values());
-        model.addAttribute("revenueLabels", revenueLabels);
-        model.addAttribute("revenueData", revenueData);
+        // Doanh thu + biểu đồ 7 ngày gần nhất (từ bảng tổng hợp daily_sales)
+        themDoanhThu7Ngay(model);
 
         // Chart Data: Order Status
+        Map<Order.OrderStatus, Long> statusCounts = dashboardStatsService.getOrderStatusCounts();
         List<Long> orderStatusData = List.of(
-                orderService.countOrdersByStatus(Order.OrderStatus.PENDING),
-                orderService.countOrdersByStatus(Order.OrderStatus.SHIPPING),
-                orderService.countOrdersByStatus(Order.OrderStatus.DELIVERED),
-                orderService.countOrdersByStatus(Order.OrderStatus.CANCELLED));
+                statusCounts.get(Order.OrderStatus.PENDING),
+                statusCounts.get(Order.OrderStatus.SHIPPING),
+                statusCounts.get(Order.OrderStatus.DELIVERED),
+                statusCounts.get(Order.OrderStatus.CANCELLED));
         model.addAttribute("orderStatusData", orderStatusData);
 
         return "admin/bao-cao";
@@ -533,4 +489,28 @@ public class AdminController {
         }
         return "redirect:/admin/cau-hinh";
     }
+
+    /**
+     * Thêm tổng doanh thu và dữ liệu biểu đồ doanh thu 7 ngày gần nhất (đơn đã giao)
+     * Đọc tối đa 7 dòng đã tổng hợp sẵn thay vì nạp các đơn hàng
+     */
+    private void themDoanhThu7Ngay(Model model) {
+        LocalDate today = LocalDate.now();
+        Map<LocalDate, BigDecimal> dailyRevenue = dailySalesService.getDailyRevenue(
+                Order.OrderStatus.DELIVERED, today.minusDays(6), today);
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM");
+        List<String> revenueLabels = new ArrayList<>(dailyRevenue.size());
+        List<Double> revenueData = new ArrayList<>(dailyRevenue.size());
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        for (Map.Entry<LocalDate, BigDecimal> entry : dailyRevenue.entrySet()) {
+            revenueLabels.add(entry.getKey().format(formatter));
+            revenueData.add(entry.getValue().doubleValue());
+            totalRevenue = totalRevenue.add(entry.getValue());
+        }
+
+        model.addAttribute("totalRevenue", totalRevenue.doubleValue());
+        model.addAttribute("revenueLabels", revenueLabels);
+        model.addAttribute("revenueData", revenueData);
+    }
 }
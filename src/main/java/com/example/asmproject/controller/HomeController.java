@@ -56,6 +56,9 @@ public class HomeController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private BestSellerService bestSellerService;
+
     /**
      * Trang chủ - Hiển thị danh sách sản phẩm từ database
      * Lấy tất cả sản phẩm đang hoạt động và hiển thị lên giao diện
@@ -72,6 +75,9 @@ public class HomeController {
         List<Product> products = productService.getAllActiveProducts();
         moHinh.addAttribute("products", products);
 
+        // Sản phẩm bán chạy - đọc từ snapshot trong bộ nhớ, không truy vấn database mỗi lượt xem
+        moHinh.addAttribute("bestSellers", bestSellerService.getBestSellers(8));
+
         return "trang-chu";
     }
 
@@ -189,21 +195,36 @@ public class HomeController {
             try {
                 java.math.BigDecimal latitude = new java.math.BigDecimal(lat);
                 java.math.BigDecimal longitude = new java.math.BigDecimal(lng);
-                stations = chargingStationService.findNearestStations(latitude, longitude, 10);
+                com.example.asmproject.service.StationSpatialIndex.Hits nearest =
+                        chargingStationService.findNearestWithDistances(latitude, longitude, 10);
+                stations = nearest.getStations();
+                moHinh.addAttribute("stationDistances", nearest.getDistancesKm());
             } catch (NumberFormatException e) {
-                // Nếu tọa độ không hợp lệ, lấy tất cả trạm
-                stations = chargingStationService.getAllActiveStations();
+                // Nếu tọa độ không hợp lệ, lấy 20 trạm đầu tiên
+                stations = chargingStationService.getActiveStations(20);
             }
         } else {
-            // Nếu không có tọa độ, lấy tất cả trạm đang hoạt động (tối đa 20)
-            stations = chargingStationService.getAllActiveStations();
-            if (stations.size() > 20) {
-                stations = stations.subList(0, 20);
+            // Nếu không có tọa độ: gợi ý trạm gần địa chỉ mặc định của khách hàng (nếu có),
+            // ngược lại lấy các trạm đang hoạt động (tối đa 20)
+            stations = null;
+            if (securityUtil.isAuthenticated()) {
+                Optional<Address> defaultAddress = addressService.getDefaultAddress(securityUtil.getCurrentUserId());
+                if (defaultAddress.isPresent()) {
+                    List<com.example.asmproject.model.ChargingStation> suggested =
+                            chargingStationService.suggestStationsForAddress(defaultAddress.get(), 20);
+                    if (!suggested.isEmpty()) {
+                        stations = suggested;
+                        moHinh.addAttribute("suggestedAddress", defaultAddress.get());
+                    }
+                }
+            }
+            if (stations == null) {
+                stations = chargingStationService.getActiveStations(20);
             }
         }
 
         moHinh.addAttribute("chargingStations", stations);
-        moHinh.addAttribute("totalStations", chargingStationService.getAllActiveStations().size());
+        moHinh.addAttribute("totalStations", chargingStationService.getActiveStationCount());
 
         return "dich-vu-pin";
     }
@@ -7,7 +7,9 @@ import com.example.asmproject.dto.ShippingStatusResponse;
 import com.example.asmproject.model.enums.PaymentStatus;
 import com.example.asmproject.model.enums.ShippingStatus;
 import com.example.asmproject.model.enums.ShippingType;
+import com.example.asmproject.service.IdempotencyService;
 import com.example.asmproject.service.OrderService;
+import com.example.asmproject.util.SecurityUtil;
 import jakarta.validation.Valid;
 import java.time.LocalDate;
 import java.util.Objects;
@@ -21,6 +23,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -30,9 +33,15 @@ import org.springframework.web.bind.annotation.RestController;
 public class OrderApiController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final SecurityUtil securityUtil;
 
-    public OrderApiController(OrderService orderService) {
+    public OrderApiController(OrderService orderService,
+                              IdempotencyService idempotencyService,
+                              SecurityUtil securityUtil) {
         this.orderService = orderService;
+        this.idempotencyService = idempotencyService;
+        this.securityUtil = securityUtil;
     }
 
     @GetMapping
@@ -53,8 +62,11 @@ public class OrderApiController {
     }
 
     @PostMapping
-    public OrderResponse taoDonHang(@Valid @RequestBody OrderRequest request) {
-        return orderService.createOrder(request);
+    public ResponseEntity<?> taoDonHang(@Valid @RequestBody OrderRequest request,
+                                        @RequestHeader(value = IdempotencyService.HEADER, required = false)
+                                        String idempotencyKey) {
+        return idempotencyService.execute(securityUtil.getCurrentUserEmail(), idempotencyKey,
+            () -> ResponseEntity.ok(orderService.createOrder(request)));
     }
 
     @GetMapping("/{code}/shipping-status")
@@ -1,7 +1,9 @@
 package com.example.asmproject.controller.api;
 
 import com.example.asmproject.model.Order;
+import com.example.asmproject.service.IdempotencyService;
 import com.example.asmproject.service.OrderService;
+import com.example.asmproject.util.SecurityUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -21,8 +23,24 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
     
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private SecurityUtil securityUtil;
+    
+    /**
+     * Tạo đơn hàng từ giỏ hàng
+     * Gửi kèm header Idempotency-Key để các lần bấm/gửi lại trả về kết quả của lần đầu
+     */
     @PostMapping("/create")
-    public ResponseEntity<Map<String, Object>> createOrder(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<?> createOrder(@RequestBody Map<String, Object> request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(securityUtil.getCurrentUserEmail(), idempotencyKey,
+                () -> doCreateOrder(request));
+    }
+    
+    private ResponseEntity<Map<String, Object>> doCreateOrder(Map<String, Object> request) {
         Map<String, Object> response = new HashMap<>();
         try {
             Long userId = Long.valueOf(request.get("userId").toString());
@@ -1,6 +1,8 @@
 package com.example.asmproject.controller.api;
 
+import com.example.asmproject.dto.ProductResponse;
 import com.example.asmproject.model.Product;
+import com.example.asmproject.service.BestSellerService;
 import com.example.asmproject.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -28,6 +30,9 @@ public class ProductController {
     @Autowired
     private ProductService productService;
     
+    @Autowired
+    private BestSellerService bestSellerService;
+    
     /**
      * API tìm kiếm sản phẩm với nhiều tiêu chí
      * Hỗ trợ tìm kiếm theo: từ khóa, thương hiệu, danh mục, trạng thái
@@ -99,6 +104,17 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
     
+    /**
+     * API lấy danh sách sản phẩm bán chạy (từ snapshot trong bộ nhớ, làm mới định kỳ)
+     * 
+     * @param limit Số sản phẩm tối đa (mặc định 8)
+     * @return Danh sách sản phẩm bán chạy, sắp xếp theo số lượng bán giảm dần
+     */
+    @GetMapping("/best-sellers")
+    public ResponseEntity<List<ProductResponse>> getBestSellers(@RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(bestSellerService.getBestSellers(limit));
+    }
+    
     /**
      * API lấy danh sách sản phẩm đang hoạt động với phân trang
      * 
@@ -0,0 +1,111 @@
+package com.example.asmproject.controller.api;
+
+import com.example.asmproject.service.ChargingStationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stations")
+public class StationController {
+
+    private static final double MAX_RADIUS_KM = 500;
+
+    @Autowired
+    private ChargingStationService chargingStationService;
+
+    /**
+     * API trạm sạc cho bản đồ, trả về mảng song song (id, vĩ độ, kinh độ, số pin sẵn có)
+     * GET /api/stations?bbox=minLng,minLat,maxLng,maxLat   (thứ tự như Leaflet toBBoxString)
+     * GET /api/stations?lat=21.02&lng=105.85&radiusKm=10
+     */
+    @GetMapping
+    public ResponseEntity<?> getStations(@RequestParam(required = false) String bbox,
+                                         @RequestParam(required = false) Double lat,
+                                         @RequestParam(required = false) Double lng,
+                                         @RequestParam(defaultValue = "10") double radiusKm) {
+        try {
+            if (bbox != null && !bbox.isBlank()) {
+                double[] box = parseBbox(bbox);
+                return ResponseEntity.ok(chargingStationService.getMapStationsInBounds(box[1], box[0], box[3], box[2]));
+            }
+            if (lat == null || lng == null) {
+                throw new RuntimeException("Cần truyền bbox hoặc lat, lng");
+            }
+            if (!isLatitude(lat) || !isLongitude(lng)) {
+                throw new RuntimeException("Tọa độ không hợp lệ");
+            }
+            if (radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+                throw new RuntimeException("Bán kính phải trong khoảng (0, " + (int) MAX_RADIUS_KM + "] km");
+            }
+            return ResponseEntity.ok(chargingStationService.getMapStationsWithinRadius(lat, lng, radiusKm));
+        } catch (Exception e) {
+            return badRequest(e);
+        }
+    }
+
+    /**
+     * API cụm trạm sạc trong khung nhìn ở mức zoom của bản đồ (0 - 22)
+     * GET /api/stations/clusters?bbox=minLng,minLat,maxLng,maxLat&zoom=12
+     */
+    @GetMapping("/clusters")
+    public ResponseEntity<?> getClusters(@RequestParam String bbox, @RequestParam int zoom) {
+        try {
+            if (zoom < 0 || zoom > 22) {
+                throw new RuntimeException("zoom phải trong khoảng 0 - 22");
+            }
+            double[] box = parseBbox(bbox);
+            return ResponseEntity.ok(chargingStationService.getStationClusters(box[1], box[0], box[3], box[2], zoom));
+        } catch (Exception e) {
+            return badRequest(e);
+        }
+    }
+
+    /**
+     * API số trạm sạc đang hoạt động
+     * GET /api/stations/count
+     */
+    @GetMapping("/count")
+    public ResponseEntity<Map<String, Object>> countStations() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("count", chargingStationService.getActiveStationCount());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Đọc bbox dạng minLng,minLat,maxLng,maxLat
+     */
+    private static double[] parseBbox(String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new RuntimeException("bbox phải có dạng minLng,minLat,maxLng,maxLat");
+        }
+        double[] box = new double[4];
+        for (int i = 0; i < 4; i++) {
+            box[i] = Double.parseDouble(parts[i].trim());
+        }
+        if (box[1] > box[3] || !isLatitude(box[1]) || !isLatitude(box[3])
+                || !isLongitude(box[0]) || !isLongitude(box[2])) {
+            throw new RuntimeException("bbox không hợp lệ");
+        }
+        return box;
+    }
+
+    private static ResponseEntity<Map<String, Object>> badRequest(Exception e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("message", e instanceof NumberFormatException ? "bbox không hợp lệ" : e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    private static boolean isLatitude(double value) {
+        return value >= -90 && value <= 90;
+    }
+
+    private static boolean isLongitude(double value) {
+        return value >= -180 && value <= 180;
+    }
+}
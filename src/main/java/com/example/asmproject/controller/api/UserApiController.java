@@ -6,7 +6,6 @@ import com.example.asmproject.dto.UserResponse;
 import com.example.asmproject.model.enums.UserStatus;
 import com.example.asmproject.service.UserService;
 import jakarta.validation.Valid;
-import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.lang.NonNull;
@@ -55,8 +54,10 @@ public class UserApiController {
     }
 
     @GetMapping("/{id}/orders")
-    public List<OrderResponse> lichSuMuaHang(@PathVariable @NonNull Long id) {
-        return userService.getPurchaseHistory(id);
+    public Page<OrderResponse> lichSuMuaHang(@PathVariable @NonNull Long id,
+                                             @RequestParam(defaultValue = "0") int page,
+                                             @RequestParam(defaultValue = "20") int size) {
+        return userService.getPurchaseHistory(id, PageRequest.of(page, size));
     }
 }
 
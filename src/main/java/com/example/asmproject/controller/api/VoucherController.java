@@ -54,6 +54,25 @@ public class VoucherController {
         }
     }
     
+    /**
+     * API gợi ý voucher giảm nhiều nhất cho đơn hàng có giá trị amount
+     */
+    @GetMapping("/best")
+    public ResponseEntity<Map<String, Object>> getBestVoucher(@RequestParam BigDecimal amount) {
+        Map<String, Object> response = new HashMap<>();
+        Voucher voucher = amount.signum() > 0 ? voucherService.getBestVoucherForOrder(amount) : null;
+
+        if (voucher != null) {
+            response.put("found", true);
+            response.put("voucher", voucher);
+            response.put("discount", voucher.calculateDiscount(amount));
+        } else {
+            response.put("found", false);
+            response.put("message", "Chưa có mã giảm giá phù hợp với đơn hàng");
+        }
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * API kiểm tra voucher có hợp lệ với đơn hàng không
      */
@@ -61,11 +80,13 @@ public class VoucherController {
     public ResponseEntity<Map<String, Object>> checkVoucher(@RequestParam String code, 
                                                             @RequestParam BigDecimal amount) {
         Map<String, Object> response = new HashMap<>();
-        Optional<Voucher> voucherOpt = voucherService.getVoucherByCode(code);
+        Voucher usable = voucherService.findUsableVoucher(code);
+        // Mã không có trong danh mục voucher đang dùng được thì mới đọc database để báo lý do
+        Optional<Voucher> voucherOpt = usable != null ? Optional.of(usable) : voucherService.getVoucherByCode(code);
 
         if (voucherOpt.isPresent()) {
             Voucher voucher = voucherOpt.get();
-            if (voucher.isValid()) {
+            if (voucher == usable || voucher.isValid()) {
                 if (voucher.getMinOrderAmount() == null || amount.compareTo(voucher.getMinOrderAmount()) >= 0) {
                     BigDecimal discount = voucher.calculateDiscount(amount);
                     response.put("valid", true);
@@ -0,0 +1,81 @@
+package com.example.asmproject.controller.api.admin;
+
+import com.example.asmproject.dto.ProductSalesResponse;
+import com.example.asmproject.model.Order;
+import com.example.asmproject.model.enums.TimeBucket;
+import com.example.asmproject.service.ProductAnalyticsService;
+import com.example.asmproject.service.RevenueAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller số liệu phân tích cho biểu đồ (Admin).
+ */
+@RestController
+@RequestMapping("/api/admin/analytics")
+public class AdminAnalyticsController {
+
+    @Autowired
+    private RevenueAnalyticsService revenueAnalyticsService;
+
+    @Autowired
+    private ProductAnalyticsService productAnalyticsService;
+
+    /**
+     * Doanh thu theo thời gian với độ chia hour | day | week | month.
+     * Mặc định: 30 ngày gần nhất, theo ngày, đơn đã giao.
+     */
+    @GetMapping("/revenue")
+    public ResponseEntity<?> getRevenue(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "day") String bucket,
+            @RequestParam(required = false) String status) {
+        try {
+            LocalDate toDate = to != null ? to : LocalDate.now();
+            LocalDate fromDate = from != null ? from : toDate.minusDays(29);
+            TimeBucket timeBucket = TimeBucket.valueOf(bucket.toUpperCase());
+            Order.OrderStatus orderStatus = status != null ? Order.OrderStatus.valueOf(status.toUpperCase()) : null;
+            return ResponseEntity.ok(revenueAnalyticsService.getRevenueSeries(fromDate, toDate, timeBucket, orderStatus));
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Top sản phẩm bán chạy (số lượng, doanh thu, số đơn, số khách hàng) trong khoảng ngày.
+     * Mặc định: 30 ngày gần nhất, 10 sản phẩm.
+     */
+    @GetMapping("/products")
+    public ResponseEntity<List<ProductSalesResponse>> getTopProducts(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        LocalDate toDate = to != null ? to : LocalDate.now();
+        LocalDate fromDate = from != null ? from : toDate.minusDays(29);
+        return ResponseEntity.ok(productAnalyticsService.getTopProducts(fromDate, toDate, Math.max(1, Math.min(limit, 100))));
+    }
+
+    /**
+     * Doanh số theo từng màu của một sản phẩm trong khoảng ngày.
+     */
+    @GetMapping("/products/{productId}/colors")
+    public ResponseEntity<List<ProductSalesResponse>> getColorSales(
+            @PathVariable Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate toDate = to != null ? to : LocalDate.now();
+        LocalDate fromDate = from != null ? from : toDate.minusDays(29);
+        return ResponseEntity.ok(productAnalyticsService.getColorSales(productId, fromDate, toDate));
+    }
+}
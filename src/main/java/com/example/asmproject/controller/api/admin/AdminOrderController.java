@@ -5,14 +5,18 @@ import com.example.asmproject.model.Order;
 import com.example.asmproject.model.enums.PaymentStatus;
 import com.example.asmproject.model.enums.ShippingStatus;
 import com.example.asmproject.model.enums.ShippingType;
+import com.example.asmproject.service.OrderExportService;
 import com.example.asmproject.service.OrderService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
@@ -28,6 +32,9 @@ public class AdminOrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private OrderExportService orderExportService;
+
     /**
      * Tìm kiếm đơn hàng theo nhiều tiêu chí lọc.
      * Hỗ trợ lọc theo: từ khóa, loại giao hàng, trạng thái thanh toán/vận chuyển,
@@ -137,4 +144,25 @@ public class AdminOrderController {
     public ResponseEntity<?> getFastDeliveryOrders() {
         return ResponseEntity.ok(orderService.getFastDeliveryOrders());
     }
+
+    /**
+     * Xuất chi tiết đơn hàng (từng dòng sản phẩm) theo khoảng ngày ra CSV hoặc XLSX.
+     * Dữ liệu được ghi thẳng ra response trong khi đọc từ database.
+     */
+    @GetMapping("/export")
+    public void exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        if ("xlsx".equalsIgnoreCase(format)) {
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=don-hang.xlsx");
+            orderExportService.exportXlsx(fromDate, toDate, response.getOutputStream());
+        } else {
+            response.setContentType("text/csv; charset=UTF-8");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=don-hang.csv");
+            orderExportService.exportCsv(fromDate, toDate, response.getOutputStream());
+        }
+    }
 }
@@ -3,6 +3,8 @@ package com.example.asmproject.controller.api.admin;
 import com.example.asmproject.dto.ProductRequest;
 import com.example.asmproject.dto.ProductResponse;
 import com.example.asmproject.model.Product;
+import com.example.asmproject.model.ProductColor;
+import com.example.asmproject.service.InventoryService;
 import com.example.asmproject.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -24,6 +26,9 @@ public class AdminProductController {
     @Autowired
     private ProductService productService;
 
+    @Autowired
+    private InventoryService inventoryService;
+
     /**
      * Tìm kiếm sản phẩm theo nhiều tiêu chí (tên, thương hiệu, danh mục, trạng thái).
      * Kết quả trả về được phân trang.
@@ -118,5 +123,28 @@ public class AdminProductController {
             return ResponseEntity.badRequest().body(response);
         }
     }
+    
+    /**
+     * Cập nhật tồn kho theo màu của sản phẩm.
+     * Tổng tồn kho của sản phẩm được tính lại từ các màu.
+     * Body: {"quantity": 20}
+     */
+    @PutMapping("/{id}/colors/{colorId}/stock")
+    public ResponseEntity<Map<String, Object>> updateColorStock(@PathVariable Long id,
+                                                                @PathVariable Long colorId,
+                                                                @RequestBody Map<String, Object> request) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            int quantity = Integer.parseInt(request.get("quantity").toString());
+            ProductColor productColor = inventoryService.setColorStock(id, colorId, quantity);
+            response.put("success", true);
+            response.put("message", "Cập nhật tồn kho theo màu thành công.");
+            response.put("quantity", productColor.getQuantity());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
 }
-
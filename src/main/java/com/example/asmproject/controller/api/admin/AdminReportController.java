@@ -0,0 +1,87 @@
+package com.example.asmproject.controller.api.admin;
+
+import com.example.asmproject.dto.ReportJobResponse;
+import com.example.asmproject.model.enums.ReportType;
+import com.example.asmproject.service.ReportJobService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Controller báo cáo chạy nền (Admin).
+ * Gửi yêu cầu báo cáo, theo dõi tiến độ và tải file kết quả khi hoàn thành.
+ */
+@RestController
+@RequestMapping("/api/admin/reports")
+public class AdminReportController {
+
+    @Autowired
+    private ReportJobService reportJobService;
+
+    /**
+     * Tạo báo cáo mới, trả về ngay job id (báo cáo được xử lý ở nền).
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createReport(
+            @RequestParam String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            ReportType reportType = ReportType.valueOf(type.toUpperCase());
+            ReportJobResponse job = reportJobService.submit(reportType, fromDate, toDate);
+
+            response.put("success", true);
+            response.put("message", "Đã tiếp nhận yêu cầu báo cáo, vui lòng chờ xử lý.");
+            response.put("job", job);
+            return ResponseEntity.accepted().body(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Danh sách báo cáo còn hiệu lực (mới nhất trước).
+     */
+    @GetMapping
+    public ResponseEntity<List<ReportJobResponse>> getReports() {
+        return ResponseEntity.ok(reportJobService.getJobs());
+    }
+
+    /**
+     * Trạng thái và tiến độ (%) của một báo cáo.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ReportJobResponse> getReport(@PathVariable String id) {
+        return reportJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Tải file CSV kết quả của báo cáo đã hoàn thành.
+     */
+    @GetMapping("/{id}/download")
+    public void downloadReport(@PathVariable String id, HttpServletResponse response) throws IOException {
+        Optional<ReportJobResponse> job = reportJobService.getJob(id);
+        if (job.isEmpty() || job.get().getDownloadUrl() == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Báo cáo không tồn tại hoặc chưa sẵn sàng");
+            return;
+        }
+        response.setContentType("text/csv; charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + reportJobService.getFileName(id));
+        reportJobService.writeResult(id, response.getOutputStream());
+    }
+}
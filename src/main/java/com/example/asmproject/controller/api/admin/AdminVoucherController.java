@@ -1,6 +1,9 @@
 package com.example.asmproject.controller.api.admin;
 
+import com.example.asmproject.dto.VoucherBulkRequest;
+import com.example.asmproject.dto.VoucherBulkResponse;
 import com.example.asmproject.model.Voucher;
+import com.example.asmproject.service.VoucherBulkService;
 import com.example.asmproject.service.VoucherService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -22,6 +25,9 @@ public class AdminVoucherController {
     @Autowired
     private VoucherService voucherService;
 
+    @Autowired
+    private VoucherBulkService voucherBulkService;
+
     /**
      * Lấy danh sách voucher, có hỗ trợ lọc theo trạng thái.
      */
@@ -73,6 +79,45 @@ public class AdminVoucherController {
         }
     }
 
+    /**
+     * Sinh hàng loạt mã giảm giá cho một đợt phát hành (mỗi mã mặc định dùng 1 lần).
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> generateVouchers(@RequestBody VoucherBulkRequest request) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            VoucherBulkResponse result = voucherBulkService.generate(request);
+            response.put("success", true);
+            response.put("message", "Đã tạo " + result.getCreated() + " voucher.");
+            response.put("result", result);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    /**
+     * Nhập voucher từ nội dung file CSV (Content-Type: text/csv), campaign để trống = voucher công khai.
+     */
+    @PostMapping(value = "/import", consumes = { "text/csv", "text/plain" })
+    public ResponseEntity<Map<String, Object>> importVouchers(@RequestBody String csv,
+            @RequestParam(required = false) String campaign) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            VoucherBulkResponse result = voucherBulkService.importCsv(csv, campaign);
+            response.put("success", true);
+            response.put("message", "Đã nhập " + result.getCreated() + " voucher, bỏ qua " + result.getSkipped() + " dòng.");
+            response.put("result", result);
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     /**
      * Cập nhật mã giảm giá.
      */
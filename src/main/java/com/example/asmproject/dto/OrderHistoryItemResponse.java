@@ -0,0 +1,50 @@
+package com.example.asmproject.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Một dòng sản phẩm trong lịch sử đơn hàng của khách hàng
+ */
+public class OrderHistoryItemResponse {
+
+    private Long orderId;
+    private String productName;
+    private String productImage;
+    private String colorName;
+    private Integer quantity;
+    private BigDecimal price;
+
+    public OrderHistoryItemResponse(Long orderId, String productName, String productImage, String colorName,
+            Integer quantity, BigDecimal price) {
+        this.orderId = orderId;
+        this.productName = productName;
+        this.productImage = productImage;
+        this.colorName = colorName;
+        this.quantity = quantity;
+        this.price = price;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public String getProductImage() {
+        return productImage;
+    }
+
+    public String getColorName() {
+        return colorName;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.asmproject.dto;
+
+import com.example.asmproject.model.Address;
+import com.example.asmproject.model.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Một đơn hàng trong trang "Đơn hàng của tôi" (chỉ các cột cần hiển thị, không phải entity)
+ */
+public class OrderHistoryResponse {
+
+    private Long id;
+    private String orderCode;
+    private LocalDateTime createdAt;
+    private Order.OrderStatus orderStatus;
+    private BigDecimal total;
+    private String recipientName;
+    private String recipientAddress;
+    private List<OrderHistoryItemResponse> items = new ArrayList<>();
+
+    public OrderHistoryResponse(Long id, String orderCode, LocalDateTime createdAt, Order.OrderStatus orderStatus,
+            BigDecimal total, String recipientName, String street, String ward, String district, String province) {
+        this.id = id;
+        this.orderCode = orderCode;
+        this.createdAt = createdAt;
+        this.orderStatus = orderStatus;
+        this.total = total;
+        this.recipientName = recipientName;
+        this.recipientAddress = Address.formatFullAddress(street, ward, district, province);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getOrderCode() {
+        return orderCode;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public Order.OrderStatus getOrderStatus() {
+        return orderStatus;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public String getRecipientName() {
+        return recipientName;
+    }
+
+    public String getRecipientAddress() {
+        return recipientAddress;
+    }
+
+    public List<OrderHistoryItemResponse> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderHistoryItemResponse> items) {
+        this.items = items;
+    }
+}
@@ -8,6 +8,9 @@ import java.math.BigDecimal;
 
 public class OrderItemRequest {
 
+    // Không bắt buộc: nếu có thì dùng id, không cần tra theo tên
+    private Long productId;
+
     @NotBlank(message = "Tên sản phẩm không được để trống")
     private String productName;
 
@@ -19,6 +22,14 @@ public class OrderItemRequest {
     @Positive(message = "Đơn giá phải lớn hơn 0")
     private BigDecimal unitPrice;
 
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
     public String getProductName() {
         return productName;
     }
@@ -0,0 +1,82 @@
+package com.example.asmproject.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Doanh số của một sản phẩm (hoặc một màu của sản phẩm) trong khoảng thời gian
+ */
+public class ProductSalesResponse {
+
+    private Long productId;
+    private String productName;
+    private Long colorId;
+    private String colorName;
+    private long quantity;
+    private BigDecimal revenue;
+    private long orderCount;
+    private Long buyerCount;
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public Long getColorId() {
+        return colorId;
+    }
+
+    public void setColorId(Long colorId) {
+        this.colorId = colorId;
+    }
+
+    public String getColorName() {
+        return colorName;
+    }
+
+    public void setColorName(String colorName) {
+        this.colorName = colorName;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public Long getBuyerCount() {
+        return buyerCount;
+    }
+
+    public void setBuyerCount(Long buyerCount) {
+        this.buyerCount = buyerCount;
+    }
+}
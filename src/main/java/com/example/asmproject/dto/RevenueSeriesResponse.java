@@ -0,0 +1,97 @@
+package com.example.asmproject.dto;
+
+import com.example.asmproject.model.Order;
+import com.example.asmproject.model.enums.TimeBucket;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Chuỗi doanh thu theo thời gian dạng mảng song song:
+ * labels[i] là mốc bắt đầu của khoảng thứ i, revenue[i] / orders[i] là số liệu của khoảng đó
+ */
+public class RevenueSeriesResponse {
+
+    private LocalDate fromDate;
+    private LocalDate toDate;
+    private TimeBucket bucket;
+    private Order.OrderStatus status;
+    private List<String> labels;
+    private List<BigDecimal> revenue;
+    private List<Long> orders;
+    private BigDecimal totalRevenue;
+    private long totalOrders;
+
+    public LocalDate getFromDate() {
+        return fromDate;
+    }
+
+    public void setFromDate(LocalDate fromDate) {
+        this.fromDate = fromDate;
+    }
+
+    public LocalDate getToDate() {
+        return toDate;
+    }
+
+    public void setToDate(LocalDate toDate) {
+        this.toDate = toDate;
+    }
+
+    public TimeBucket getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(TimeBucket bucket) {
+        this.bucket = bucket;
+    }
+
+    public Order.OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(Order.OrderStatus status) {
+        this.status = status;
+    }
+
+    public List<String> getLabels() {
+        return labels;
+    }
+
+    public void setLabels(List<String> labels) {
+        this.labels = labels;
+    }
+
+    public List<BigDecimal> getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(List<BigDecimal> revenue) {
+        this.revenue = revenue;
+    }
+
+    public List<Long> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<Long> orders) {
+        this.orders = orders;
+    }
+
+    public BigDecimal getTotalRevenue() {
+        return totalRevenue;
+    }
+
+    public void setTotalRevenue(BigDecimal totalRevenue) {
+        this.totalRevenue = totalRevenue;
+    }
+
+    public long getTotalOrders() {
+        return totalOrders;
+    }
+
+    public void setTotalOrders(long totalOrders) {
+        this.totalOrders = totalOrders;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.asmproject.dto;
+
+/**
+ * Các cụm trạm sạc trong khung nhìn ở một mức zoom, dạng mảng song song:
+ * cụm thứ i có tâm (latitudes[i], longitudes[i]) và counts[i] trạm;
+ * stationIds[i] là id trạm nếu cụm chỉ có 1 trạm, 0 nếu cụm có nhiều trạm
+ */
+public class StationClusterResponse {
+
+    private int zoom;
+    private int count;
+    private double[] latitudes;
+    private double[] longitudes;
+    private int[] counts;
+    private long[] stationIds;
+
+    public int getZoom() {
+        return zoom;
+    }
+
+    public void setZoom(int zoom) {
+        this.zoom = zoom;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    public double[] getLatitudes() {
+        return latitudes;
+    }
+
+    public void setLatitudes(double[] latitudes) {
+        this.latitudes = latitudes;
+    }
+
+    public double[] getLongitudes() {
+        return longitudes;
+    }
+
+    public void setLongitudes(double[] longitudes) {
+        this.longitudes = longitudes;
+    }
+
+    public int[] getCounts() {
+        return counts;
+    }
+
+    public void setCounts(int[] counts) {
+        this.counts = counts;
+    }
+
+    public long[] getStationIds() {
+        return stationIds;
+    }
+
+    public void setStationIds(long[] stationIds) {
+        this.stationIds = stationIds;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.asmproject.dto;
+
+/**
+ * Danh sách trạm sạc cho bản đồ dạng mảng song song (gọn để client tự gom cụm):
+ * trạm thứ i có id ids[i], tọa độ (latitudes[i], longitudes[i]) và availableBatteries[i] pin sẵn có;
+ * distancesKm[i] là khoảng cách tới điểm tìm kiếm (chỉ có khi tìm theo bán kính)
+ */
+public class StationMapResponse {
+
+    private int count;
+    private boolean truncated;
+    private long[] ids;
+    private double[] latitudes;
+    private double[] longitudes;
+    private int[] availableBatteries;
+    private double[] distancesKm;
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
+    /**
+     * true nếu khung / bán kính có nhiều trạm hơn giới hạn trả về
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public long[] getIds() {
+        return ids;
+    }
+
+    public void setIds(long[] ids) {
+        this.ids = ids;
+    }
+
+    public double[] getLatitudes() {
+        return latitudes;
+    }
+
+    public void setLatitudes(double[] latitudes) {
+        this.latitudes = latitudes;
+    }
+
+    public double[] getLongitudes() {
+        return longitudes;
+    }
+
+    public void setLongitudes(double[] longitudes) {
+        this.longitudes = longitudes;
+    }
+
+    public int[] getAvailableBatteries() {
+        return availableBatteries;
+    }
+
+    public void setAvailableBatteries(int[] availableBatteries) {
+        this.availableBatteries = availableBatteries;
+    }
+
+    public double[] getDistancesKm() {
+        return distancesKm;
+    }
+
+    public void setDistancesKm(double[] distancesKm) {
+        this.distancesKm = distancesKm;
+    }
+}
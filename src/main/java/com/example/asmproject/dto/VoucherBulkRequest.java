@@ -0,0 +1,61 @@
+package com.example.asmproject.dto;
+
+import com.example.asmproject.model.Voucher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Yêu cầu sinh hàng loạt mã voucher cùng quy tắc giảm giá (mỗi mã mặc định dùng 1 lần)
+ */
+public class VoucherBulkRequest {
+    private String campaign;
+    private String prefix;
+    private Integer count;
+    private Integer codeLength;
+    private String description;
+    private Voucher.DiscountType discountType;
+    private BigDecimal discountValue;
+    private BigDecimal minOrderAmount;
+    private BigDecimal maxDiscountAmount;
+    private Integer quantity;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+
+    // Getters and Setters
+    public String getCampaign() { return campaign; }
+    public void setCampaign(String campaign) { this.campaign = campaign; }
+
+    public String getPrefix() { return prefix; }
+    public void setPrefix(String prefix) { this.prefix = prefix; }
+
+    public Integer getCount() { return count; }
+    public void setCount(Integer count) { this.count = count; }
+
+    public Integer getCodeLength() { return codeLength; }
+    public void setCodeLength(Integer codeLength) { this.codeLength = codeLength; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public Voucher.DiscountType getDiscountType() { return discountType; }
+    public void setDiscountType(Voucher.DiscountType discountType) { this.discountType = discountType; }
+
+    public BigDecimal getDiscountValue() { return discountValue; }
+    public void setDiscountValue(BigDecimal discountValue) { this.discountValue = discountValue; }
+
+    public BigDecimal getMinOrderAmount() { return minOrderAmount; }
+    public void setMinOrderAmount(BigDecimal minOrderAmount) { this.minOrderAmount = minOrderAmount; }
+
+    public BigDecimal getMaxDiscountAmount() { return maxDiscountAmount; }
+    public void setMaxDiscountAmount(BigDecimal maxDiscountAmount) { this.maxDiscountAmount = maxDiscountAmount; }
+
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+
+    public LocalDateTime getStartDate() { return startDate; }
+    public void setStartDate(LocalDateTime startDate) { this.startDate = startDate; }
+
+    public LocalDateTime getEndDate() { return endDate; }
+    public void setEndDate(LocalDateTime endDate) { this.endDate = endDate; }
+}
@@ -0,0 +1,95 @@
+package com.example.asmproject.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kết quả sinh / nhập voucher hàng loạt
+ */
+public class VoucherBulkResponse {
+
+    private String campaign;
+    private int requested;
+    private int created;
+    private int skipped;
+    private long elapsedMs;
+    private long vouchersPerSecond;
+    private List<String> codes = new ArrayList<>();
+    private List<String> errors = new ArrayList<>();
+
+    public String getCampaign() {
+        return campaign;
+    }
+
+    public void setCampaign(String campaign) {
+        this.campaign = campaign;
+    }
+
+    /**
+     * Số mã cần sinh / số dòng dữ liệu trong file CSV
+     */
+    public int getRequested() {
+        return requested;
+    }
+
+    public void setRequested(int requested) {
+        this.requested = requested;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    /**
+     * Số dòng bỏ qua (dữ liệu không hợp lệ hoặc mã đã tồn tại)
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public long getVouchersPerSecond() {
+        return vouchersPerSecond;
+    }
+
+    public void setVouchersPerSecond(long vouchersPerSecond) {
+        this.vouchersPerSecond = vouchersPerSecond;
+    }
+
+    /**
+     * Các mã đã tạo (theo thứ tự ghi vào database)
+     */
+    public List<String> getCodes() {
+        return codes;
+    }
+
+    public void setCodes(List<String> codes) {
+        this.codes = codes;
+    }
+
+    /**
+     * Lỗi theo từng dòng (tối đa VoucherBulkService.MAX_REPORTED_ERRORS dòng)
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+}
@@ -73,6 +73,13 @@ public class Address {
     }
 
     public String getFullAddress() {
+        return formatFullAddress(street, ward, district, province);
+    }
+
+    /**
+     * Ghép địa chỉ đầy đủ (dùng chung cho entity và các truy vấn projection không nạp Address)
+     */
+    public static String formatFullAddress(String street, String ward, String district, String province) {
         String p = province;
         if (p != null && p.contains(",")) {
             // Nếu có dạng "ID,Name" thì lấy phần Name
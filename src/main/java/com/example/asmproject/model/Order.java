@@ -146,11 +146,6 @@ public class Order {
         this.address = address;
         this.subtotal = subtotal;
         this.total = total;
-        this.generateOrderCode();
-    }
-
-    public void generateOrderCode() {
-        this.orderCode = "VF" + System.currentTimeMillis();
     }
 
     // Getters and Setters
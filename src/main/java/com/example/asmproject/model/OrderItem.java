@@ -11,8 +11,11 @@ import java.math.BigDecimal;
 @Table(name = "order_items")
 public class OrderItem {
     
+    // Dùng SEQUENCE (pooled, 50 id/lần gọi) thay vì IDENTITY để Hibernate có thể
+    // gom INSERT order_items thành một JDBC batch khi tạo đơn hàng
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_items_seq")
+    @SequenceGenerator(name = "order_items_seq", sequenceName = "order_items_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
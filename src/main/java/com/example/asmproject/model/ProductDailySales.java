@@ -0,0 +1,111 @@
+package com.example.asmproject.model;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Bảng tổng hợp doanh số theo sản phẩm (ngày đặt hàng x sản phẩm x màu)
+ * Chỉ tính các đơn hàng không bị hủy / trả hàng. color_id = 0 nghĩa là dòng sản phẩm không chọn màu.
+ * Được cập nhật cộng dồn khi tạo đơn / đổi trạng thái và đối soát lại hằng đêm.
+ */
+@Entity
+@Table(name = "product_daily_sales", uniqueConstraints = @UniqueConstraint(
+        name = "UQ_product_daily_sales_bucket", columnNames = { "sales_date", "product_id", "color_id" }))
+public class ProductDailySales {
+
+    public static final long NO_COLOR = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sales_date", nullable = false)
+    private LocalDate salesDate;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "color_id", nullable = false)
+    private Long colorId = NO_COLOR;
+
+    @Column(nullable = false)
+    private Long quantity = 0L;
+
+    @Column(nullable = false, precision = 18, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    // Số đơn hàng có chứa sản phẩm (và màu) này
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+
+    public void setSalesDate(LocalDate salesDate) {
+        this.salesDate = salesDate;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getColorId() {
+        return colorId;
+    }
+
+    public void setColorId(Long colorId) {
+        this.colorId = colorId;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Long quantity) {
+        this.quantity = quantity;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(Long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
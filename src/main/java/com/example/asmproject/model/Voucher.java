@@ -62,6 +62,11 @@ public class Voucher {
     @Enumerated(EnumType.STRING)
     private VoucherStatus status = VoucherStatus.ACTIVE;
     
+    // Đợt phát hành mã hàng loạt; voucher thuộc một đợt không hiện trong danh sách công khai,
+    // chỉ dùng được khi khách nhập đúng mã
+    @Column(length = 50)
+    private String campaign;
+    
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -231,6 +236,14 @@ public class Voucher {
         this.updatedAt = updatedAt;
     }
     
+    public String getCampaign() {
+        return campaign;
+    }
+    
+    public void setCampaign(String campaign) {
+        this.campaign = campaign;
+    }
+    
     public List<Order> getOrders() {
         return orders;
     }
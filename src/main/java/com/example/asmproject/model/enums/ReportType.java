@@ -0,0 +1,18 @@
+package com.example.asmproject.model.enums;
+
+public enum ReportType {
+    SUMMARY("Tổng hợp theo ngày"),
+    BY_PRODUCT("Theo sản phẩm"),
+    BY_PROVINCE("Theo tỉnh/thành phố"),
+    BY_VOUCHER("Theo voucher");
+
+    private final String displayName;
+
+    ReportType(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+}
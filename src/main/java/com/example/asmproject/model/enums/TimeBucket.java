@@ -0,0 +1,11 @@
+package com.example.asmproject.model.enums;
+
+/**
+ * Độ chia thời gian cho biểu đồ doanh thu
+ */
+public enum TimeBucket {
+    HOUR,
+    DAY,
+    WEEK,
+    MONTH
+}
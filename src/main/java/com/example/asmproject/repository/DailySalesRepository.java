@@ -0,0 +1,50 @@
+package com.example.asmproject.repository;
+
+import com.example.asmproject.model.DailySales;
+import com.example.asmproject.model.Order;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, Long> {
+
+    /**
+     * Doanh thu theo ngày của một trạng thái: [salesDate, SUM(revenue)]
+     */
+    @Query("SELECT d.salesDate, SUM(d.revenue) FROM DailySales d " +
+           "WHERE d.orderStatus = :status AND d.salesDate BETWEEN :from AND :to " +
+           "GROUP BY d.salesDate ORDER BY d.salesDate")
+    List<Object[]> sumRevenueByDate(@Param("status") Order.OrderStatus status,
+                                    @Param("from") LocalDate from,
+                                    @Param("to") LocalDate to);
+
+    /**
+     * Số đơn và doanh thu theo ngày của một trạng thái: [salesDate, SUM(orderCount), SUM(revenue)]
+     */
+    @Query("SELECT d.salesDate, SUM(d.orderCount), SUM(d.revenue) FROM DailySales d " +
+           "WHERE d.orderStatus = :status AND d.salesDate BETWEEN :from AND :to " +
+           "GROUP BY d.salesDate")
+    List<Object[]> sumByDate(@Param("status") Order.OrderStatus status,
+                             @Param("from") LocalDate from,
+                             @Param("to") LocalDate to);
+
+    @Query("SELECT COALESCE(SUM(d.revenue), 0) FROM DailySales d " +
+           "WHERE d.orderStatus = :status AND d.salesDate BETWEEN :from AND :to")
+    BigDecimal sumRevenue(@Param("status") Order.OrderStatus status,
+                          @Param("from") LocalDate from,
+                          @Param("to") LocalDate to);
+
+    /**
+     * Tổng hợp theo (trạng thái, phương thức giao hàng): [orderStatus, deliveryMethod, SUM(orderCount), SUM(revenue)]
+     */
+    @Query("SELECT d.orderStatus, d.deliveryMethod, SUM(d.orderCount), SUM(d.revenue) FROM DailySales d " +
+           "WHERE d.salesDate BETWEEN :from AND :to " +
+           "GROUP BY d.orderStatus, d.deliveryMethod")
+    List<Object[]> summarize(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
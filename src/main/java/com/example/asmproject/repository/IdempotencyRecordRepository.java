@@ -0,0 +1,42 @@
+package com.example.asmproject.repository;
+
+import com.example.asmproject.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByKey(String key);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key")
+    int deleteByKey(@Param("key") String key);
+
+    /**
+     * Giữ chỗ lại key đã hết hạn bằng một UPDATE có điều kiện:
+     * nhiều request cùng gặp key hết hạn thì chỉ một request nhận được 1 dòng
+     *
+     * @return 1 nếu giữ chỗ thành công, 0 nếu key không tồn tại hoặc chưa hết hạn
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.status = 'IN_PROGRESS', r.responseStatus = null, " +
+           "r.responseBody = null, r.expiresAt = :expiresAt " +
+           "WHERE r.key = :key AND r.expiresAt < :now")
+    int reclaimExpired(@Param("key") String key, @Param("now") LocalDateTime now,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,11 +1,13 @@
 package com.example.asmproject.repository;
 
+import com.example.asmproject.dto.OrderHistoryItemResponse;
 import com.example.asmproject.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,5 +17,13 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     
     @Query("SELECT oi FROM OrderItem oi WHERE oi.product.id = :productId")
     List<OrderItem> findByProductId(@Param("productId") Long productId);
+    
+    /**
+     * Các dòng sản phẩm của nhiều đơn hàng trong một truy vấn (lịch sử đơn hàng)
+     */
+    @Query("SELECT new com.example.asmproject.dto.OrderHistoryItemResponse(oi.order.id, oi.productName, " +
+           "oi.productImage, oi.colorName, oi.quantity, oi.price) " +
+           "FROM OrderItem oi WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderHistoryItemResponse> findHistoryItemsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
 
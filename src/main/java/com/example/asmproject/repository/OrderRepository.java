@@ -1,8 +1,11 @@
 package com.example.asmproject.repository;
 
+import com.example.asmproject.dto.OrderHistoryResponse;
 import com.example.asmproject.model.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -10,6 +13,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,21 +29,36 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
 
     Page<Order> findByUserId(Long userId, Pageable pageable);
 
-    @Query("SELECT o FROM Order o WHERE " +
-            "(:keyword IS NULL OR :keyword = '' OR " +
-            "o.orderCode LIKE CONCAT('%', :keyword, '%') OR " +
-            "o.user.email LIKE CONCAT('%', :keyword, '%')) AND " +
-            "(:orderStatus IS NULL OR o.orderStatus = :orderStatus) AND " +
-            "(:paymentStatus IS NULL OR o.paymentStatus = :paymentStatus) AND " +
-            "(:deliveryMethod IS NULL OR o.deliveryMethod = :deliveryMethod)")
-    Page<Order> searchOrders(
-            @Param("keyword") String keyword,
-            @Param("orderStatus") Order.OrderStatus orderStatus,
-            @Param("paymentStatus") Order.PaymentStatus paymentStatus,
-            @Param("deliveryMethod") Order.DeliveryMethod deliveryMethod,
-            Pageable pageable);
-
-    @Query("SELECT o FROM Order o WHERE o.deliveryMethod = 'FAST'")
+    /**
+     * Một trang lịch sử đơn hàng của khách hàng (projection, dùng IX_orders_user_created_at)
+     */
+    @Query(value = "SELECT new com.example.asmproject.dto.OrderHistoryResponse(o.id, o.orderCode, o.createdAt, " +
+                   "o.orderStatus, o.total, a.fullName, a.street, a.ward, a.district, a.province) " +
+                   "FROM Order o JOIN o.address a WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderHistoryResponse> findHistoryByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Tìm kiếm đơn hàng theo Specification, JOIN luôn user và address (quan hệ n-1, không ảnh hưởng phân trang)
+     */
+    @Override
+    @EntityGraph(attributePaths = { "user", "address" })
+    Page<Order> findAll(Specification<Order> spec, Pageable pageable);
+
+    /**
+     * Nạp order_items của nhiều đơn hàng trong một truy vấn (bước 2 sau khi đã lấy một trang đơn hàng)
+     */
+    @Query("SELECT DISTINCT o FROM Order o LEFT JOIN FETCH o.orderItems WHERE o.id IN :ids")
+    List<Order> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Chi tiết đơn hàng kèm user và order_items trong một truy vấn
+     */
+    @Query("SELECT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.orderItems WHERE o.id = :id")
+    Optional<Order> findDetailById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.orderItems " +
+           "WHERE o.deliveryMethod = 'FAST' ORDER BY o.createdAt DESC")
     List<Order> findFastDeliveryOrders();
 
     @Query("SELECT o FROM Order o WHERE o.deliveryMethod = 'FAST' AND o.orderStatus = :status")
@@ -48,6 +67,22 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
     @Query("SELECT COUNT(o) FROM Order o WHERE o.orderStatus = :status")
     long countByOrderStatus(@Param("status") Order.OrderStatus status);
 
+    /**
+     * Đếm đơn hàng của mọi trạng thái trong một truy vấn: [orderStatus, COUNT]
+     */
+    @Query("SELECT o.orderStatus, COUNT(o) FROM Order o GROUP BY o.orderStatus")
+    List<Object[]> countGroupByOrderStatus();
+
+    /**
+     * Số đơn và doanh thu theo từng giờ trong khoảng [from, to): [ngày, giờ, COUNT, SUM(total)]
+     */
+    @Query("SELECT CAST(o.createdAt AS LocalDate), EXTRACT(HOUR FROM o.createdAt), COUNT(o), SUM(o.total) " +
+           "FROM Order o WHERE o.orderStatus = :status AND o.createdAt >= :from AND o.createdAt < :to " +
+           "GROUP BY CAST(o.createdAt AS LocalDate), EXTRACT(HOUR FROM o.createdAt)")
+    List<Object[]> sumByHour(@Param("status") Order.OrderStatus status,
+                             @Param("from") LocalDateTime from,
+                             @Param("to") LocalDateTime to);
+
     @Query("SELECT COUNT(o) FROM Order o WHERE o.paymentStatus = :status")
     long countByPaymentStatus(@Param("status") Order.PaymentStatus status);
 
@@ -0,0 +1,75 @@
+package com.example.asmproject.repository;
+
+import com.example.asmproject.model.Order;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * Các điều kiện lọc đơn hàng dùng cho tìm kiếm admin
+ *
+ * Mỗi hàm chỉ trả về một điều kiện, service chỉ ghép những điều kiện thực sự được truyền vào,
+ * nên câu SQL sinh ra không có dạng "(:x IS NULL OR ...)" và SQL Server dùng được index:
+ * - Từ khóa có '@' được coi là email khách hàng: so sánh bằng, dùng IX_users_email
+ * - Từ khóa khác là mã đơn hàng: tìm theo tiền tố (LIKE 'kw%'), dùng IX_orders_order_code
+ * - Trạng thái + khoảng ngày: dùng IX_orders_status_created_at
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    /**
+     * Lọc theo từ khóa (email chính xác hoặc tiền tố mã đơn hàng), null nếu từ khóa rỗng
+     */
+    public static Specification<Order> keyword(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return null;
+        }
+        String value = keyword.trim();
+        if (value.indexOf('@') >= 0) {
+            return (root, query, cb) -> cb.equal(root.join("user").get("email"), value);
+        }
+        String pattern = escapeLike(value.toUpperCase()) + "%";
+        return (root, query, cb) -> cb.like(root.get("orderCode"), pattern, '\\');
+    }
+
+    /**
+     * Đơn hàng của một khách hàng (dùng IX_orders_user_created_at)
+     */
+    public static Specification<Order> user(Long userId) {
+        return userId == null ? null : (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Order> orderStatus(Order.OrderStatus status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("orderStatus"), status);
+    }
+
+    public static Specification<Order> paymentStatus(Order.PaymentStatus status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("paymentStatus"), status);
+    }
+
+    public static Specification<Order> deliveryMethod(Order.DeliveryMethod method) {
+        return method == null ? null : (root, query, cb) -> cb.equal(root.get("deliveryMethod"), method);
+    }
+
+    /**
+     * Đơn đặt từ ngày fromDate (tính cả ngày này)
+     */
+    public static Specification<Order> createdFrom(LocalDate fromDate) {
+        return fromDate == null ? null
+                : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), fromDate.atStartOfDay());
+    }
+
+    /**
+     * Đơn đặt tới hết ngày toDate
+     */
+    public static Specification<Order> createdTo(LocalDate toDate) {
+        return toDate == null ? null
+                : (root, query, cb) -> cb.lessThan(root.get("createdAt"), toDate.plusDays(1).atStartOfDay());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.asmproject.repository;
+
+import com.example.asmproject.model.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = :status AND e.nextAttemptAt <= :now ORDER BY e.id")
+    List<Long> findDueIds(@Param("status") OutboxEvent.Status status,
+                          @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    // Giữ chỗ một sự kiện; chỉ một instance/worker nhận được kết quả 1
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :processing, e.lockedAt = :now " +
+           "WHERE e.id = :id AND e.status = :pending")
+    int claim(@Param("id") Long id,
+              @Param("pending") OutboxEvent.Status pending,
+              @Param("processing") OutboxEvent.Status processing,
+              @Param("now") LocalDateTime now);
+
+    // Trả lại các sự kiện bị kẹt ở PROCESSING (ứng dụng tắt giữa chừng)
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :pending, e.lockedAt = NULL " +
+           "WHERE e.status = :processing AND e.lockedAt < :lockedBefore")
+    int releaseStale(@Param("pending") OutboxEvent.Status pending,
+                     @Param("processing") OutboxEvent.Status processing,
+                     @Param("lockedBefore") LocalDateTime lockedBefore);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("status") OutboxEvent.Status status,
+                              @Param("before") LocalDateTime before);
+}
@@ -3,6 +3,8 @@ package com.example.asmproject.repository;
 import com.example.asmproject.model.ProductColor;
 import com.example.asmproject.model.ProductColorId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -16,5 +18,13 @@ public interface ProductColorRepository extends JpaRepository<ProductColor, Prod
     Optional<ProductColor> findByProductIdAndColorId(Long productId, Long colorId);
     
     void deleteByProductId(Long productId);
+    
+    /**
+     * Lấy tồn kho của một màu mà không load entity
+     */
+    @Query("SELECT pc.quantity FROM ProductColor pc WHERE pc.product.id = :productId AND pc.color.id = :colorId")
+    Optional<Integer> findQuantity(@Param("productId") Long productId, @Param("colorId") Long colorId);
+    
+    @Query("SELECT COUNT(pc) > 0 FROM ProductColor pc WHERE pc.product.id = :productId")
+    boolean existsByProductId(@Param("productId") Long productId);
 }
-
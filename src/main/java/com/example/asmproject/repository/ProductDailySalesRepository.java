@@ -0,0 +1,36 @@
+package com.example.asmproject.repository;
+
+import com.example.asmproject.model.ProductDailySales;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ProductDailySalesRepository extends JpaRepository<ProductDailySales, Long> {
+
+    /**
+     * Sản phẩm bán chạy nhất trong khoảng ngày: [productId, SUM(quantity), SUM(revenue), SUM(orderCount)]
+     * (SUM(orderCount) đếm một đơn nhiều lần nếu đơn có nhiều màu của cùng sản phẩm)
+     */
+    @Query("SELECT s.productId, SUM(s.quantity), SUM(s.revenue), SUM(s.orderCount) FROM ProductDailySales s " +
+           "WHERE s.salesDate BETWEEN :from AND :to " +
+           "GROUP BY s.productId ORDER BY SUM(s.quantity) DESC, SUM(s.revenue) DESC")
+    List<Object[]> findTopProducts(@Param("from") LocalDate from,
+                                   @Param("to") LocalDate to,
+                                   Pageable pageable);
+
+    /**
+     * Doanh số theo màu của một sản phẩm: [colorId, SUM(quantity), SUM(revenue), SUM(orderCount)]
+     */
+    @Query("SELECT s.colorId, SUM(s.quantity), SUM(s.revenue), SUM(s.orderCount) FROM ProductDailySales s " +
+           "WHERE s.productId = :productId AND s.salesDate BETWEEN :from AND :to " +
+           "GROUP BY s.colorId ORDER BY SUM(s.quantity) DESC")
+    List<Object[]> sumByColor(@Param("productId") Long productId,
+                              @Param("from") LocalDate from,
+                              @Param("to") LocalDate to);
+}
@@ -4,10 +4,12 @@ import com.example.asmproject.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,6 +43,19 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
         Pageable pageable
     );
     
+    /**
+     * Lấy (id, name) của các sản phẩm có tên trong danh sách - một truy vấn dùng index IX_products_name
+     * Sắp xếp theo id để khi trùng tên thì sản phẩm tạo trước được chọn
+     */
+    @Query("SELECT p.id, p.name FROM Product p WHERE p.name IN :names ORDER BY p.id")
+    List<Object[]> findIdAndNameByNameIn(@Param("names") Collection<String> names);
+    
+    /**
+     * Lấy các sản phẩm theo danh sách id, JOIN FETCH brand và category (dùng cho snapshot sản phẩm bán chạy)
+     */
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category WHERE p.id IN :ids")
+    List<Product> findWithBrandAndCategoryByIdIn(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT p FROM Product p WHERE p.brand.id = :brandId")
     List<Product> findByBrandId(@Param("brandId") Long brandId);
     
@@ -64,5 +79,23 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
            "LEFT JOIN FETCH pc.color " +
            "WHERE p.slug = :slug")
     Optional<Product> findBySlugWithBrandAndCategory(@Param("slug") String slug);
+    
+    /**
+     * Tính lại tổng tồn kho của MỘT sản phẩm từ product_colors
+     * (chỉ dùng khi admin chỉnh tồn kho theo màu, không quét toàn bảng).
+     * Nhập thêm hàng thì OUT_OF_STOCK trở lại ACTIVE, về 0 thì ACTIVE chuyển OUT_OF_STOCK (INACTIVE giữ nguyên).
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.quantity = " +
+           "(SELECT COALESCE(SUM(pc.quantity), 0) FROM ProductColor pc WHERE pc.product.id = p.id), " +
+           "p.status = CASE " +
+           "WHEN p.status = com.example.asmproject.model.Product.ProductStatus.OUT_OF_STOCK " +
+           "AND (SELECT COALESCE(SUM(pc.quantity), 0) FROM ProductColor pc WHERE pc.product.id = p.id) > 0 " +
+           "THEN com.example.asmproject.model.Product.ProductStatus.ACTIVE " +
+           "WHEN p.status = com.example.asmproject.model.Product.ProductStatus.ACTIVE " +
+           "AND (SELECT COALESCE(SUM(pc.quantity), 0) FROM ProductColor pc WHERE pc.product.id = p.id) = 0 " +
+           "THEN com.example.asmproject.model.Product.ProductStatus.OUT_OF_STOCK " +
+           "ELSE p.status END " +
+           "WHERE p.id = :productId")
+    int syncQuantityFromColors(@Param("productId") Long productId);
 }
-
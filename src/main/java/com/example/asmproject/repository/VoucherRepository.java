@@ -4,9 +4,11 @@ import com.example.asmproject.model.Voucher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -48,6 +50,38 @@ public interface VoucherRepository extends JpaRepository<Voucher, Long> {
            "AND v.usedCount < v.quantity")
     long countAvailableVouchers(@Param("now") LocalDateTime now);
 
+    /**
+     * Dùng một lượt voucher: tăng usedCount trong một câu UPDATE có điều kiện (còn lượt, còn hạn, active).
+     * Trả về 0 nếu voucher đã hết lượt / hết hạn, kể cả khi nhiều đơn cùng dùng một mã đồng thời.
+     */
+    @Modifying
+    @Query("UPDATE Voucher v SET v.usedCount = v.usedCount + 1, v.updatedAt = :now " +
+           "WHERE v.id = :id " +
+           "AND v.status = 'ACTIVE' " +
+           "AND v.startDate <= :now " +
+           "AND v.endDate >= :now " +
+           "AND v.usedCount < v.quantity")
+    int redeem(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Chuyển các voucher ACTIVE đã hết hạn hoặc hết lượt sang EXPIRED trong một câu UPDATE.
+     * Các truy vấn voucher khả dụng vẫn giữ điều kiện ngày / lượt dùng cho khoảng giữa hai lần quét,
+     * nhưng chỉ còn phải xét các dòng ACTIVE thật sự còn dùng được (index theo status).
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Voucher v SET v.status = 'EXPIRED', v.updatedAt = :now " +
+           "WHERE v.status = 'ACTIVE' " +
+           "AND (v.endDate < :now OR v.usedCount >= v.quantity)")
+    int expireFinished(@Param("now") LocalDateTime now);
+
+    /**
+     * Các voucher công khai (không thuộc đợt phát hành) active chưa hết hạn, kể cả chưa tới ngày bắt đầu,
+     * để nạp VoucherCatalog
+     */
+    @Query("SELECT v FROM Voucher v WHERE v.status = 'ACTIVE' AND v.endDate >= :now AND v.campaign IS NULL")
+    List<Voucher> findPublicActiveNotExpired(@Param("now") LocalDateTime now);
+
     /**
      * Tìm các voucher còn hạn, còn số lượng, active và thỏa mãn giá trị đơn hàng tối thiểu
      */
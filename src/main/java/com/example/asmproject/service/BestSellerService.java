@@ -0,0 +1,93 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.dto.ProductResponse;
+import com.example.asmproject.model.Product;
+import com.example.asmproject.repository.ProductDailySalesRepository;
+import com.example.asmproject.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Danh sách sản phẩm "bán chạy" cho trang chủ
+ *
+ * Danh sách được tính từ bảng tổng hợp product_daily_sales (app.best-sellers.days ngày gần nhất),
+ * giữ trong bộ nhớ dưới dạng snapshot bất biến và làm mới định kỳ, nên mỗi lượt xem trang chủ
+ * không phải truy vấn database. Chỉ sản phẩm đang ACTIVE được hiển thị.
+ */
+@Service
+public class BestSellerService {
+
+    @Autowired
+    private ProductDailySalesRepository productDailySalesRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    @Value("${app.best-sellers.days:30}")
+    private int days;
+
+    @Value("${app.best-sellers.size:12}")
+    private int size;
+
+    private volatile List<ProductResponse> snapshot;
+
+    /**
+     * Tối đa limit sản phẩm bán chạy nhất (theo số lượng bán)
+     */
+    public List<ProductResponse> getBestSellers(int limit) {
+        List<ProductResponse> products = snapshot;
+        if (products == null) {
+            products = refresh();
+        }
+        return products.size() > limit ? products.subList(0, limit) : products;
+    }
+
+    /**
+     * Tính lại snapshot (mặc định mỗi 5 phút)
+     */
+    @Scheduled(fixedDelayString = "${app.best-sellers.refresh-ms:300000}")
+    public List<ProductResponse> refresh() {
+        LocalDate today = LocalDate.now();
+        // Lấy dư để vẫn đủ danh sách khi có sản phẩm đã ngừng bán
+        List<Object[]> rows = productDailySalesRepository.findTopProducts(today.minusDays(days - 1), today,
+                PageRequest.of(0, size * 2));
+        List<Long> productIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            productIds.add((Long) row[0]);
+        }
+
+        Map<Long, Product> productsById = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            for (Product product : productRepository.findWithBrandAndCategoryByIdIn(productIds)) {
+                productsById.put(product.getId(), product);
+            }
+        }
+
+        List<ProductResponse> products = new ArrayList<>(size);
+        for (Long productId : productIds) {
+            Product product = productsById.get(productId);
+            if (product != null && product.getStatus() == Product.ProductStatus.ACTIVE) {
+                products.add(productService.toProductResponse(product));
+                if (products.size() == size) {
+                    break;
+                }
+            }
+        }
+        List<ProductResponse> result = Collections.unmodifiableList(products);
+        snapshot = result;
+        return result;
+    }
+}
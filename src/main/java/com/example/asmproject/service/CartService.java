@@ -43,6 +43,9 @@ public class CartService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private InventoryService inventoryService;
+    
     /**
      * Lấy danh sách sản phẩm trong giỏ hàng của user
      * Sắp xếp theo thời gian thêm mới (mới nhất trước)
@@ -77,10 +80,8 @@ public class CartService {
             throw new RuntimeException("Sản phẩm hiện không có sẵn. Vui lòng thử lại sau.");
         }
         
-        // Kiểm tra số lượng có đủ không
-        if (quantity > product.getQuantity()) {
-            throw new RuntimeException("Số lượng sản phẩm không đủ. Hiện còn " + product.getQuantity() + " sản phẩm.");
-        }
+        // Kiểm tra số lượng có đủ không (theo tồn kho của màu nếu có chọn màu)
+        inventoryService.checkAvailable(product, colorId, quantity);
         
         // Lấy thông tin màu sắc nếu có
         Color color = null;
@@ -101,9 +102,10 @@ public class CartService {
             cart = existingCart.get();
             int newQuantity = cart.getQuantity() + quantity;
             
-            // Kiểm tra tổng số lượng không vượt quá số lượng trong kho
-            if (newQuantity > product.getQuantity()) {
-                throw new RuntimeException("Số lượng trong giỏ hàng không được vượt quá số lượng trong kho. Hiện còn " + product.getQuantity() + " sản phẩm.");
+            // Kiểm tra tổng số lượng không vượt quá số lượng trong kho của màu
+            int available = inventoryService.getAvailableStock(product, colorId);
+            if (newQuantity > available) {
+                throw new RuntimeException("Số lượng trong giỏ hàng không được vượt quá số lượng trong kho. Hiện còn " + available + " sản phẩm.");
             }
             
             cart.setQuantity(newQuantity);
@@ -144,11 +146,10 @@ public class CartService {
             return cart;
         }
         
-        // Kiểm tra số lượng không vượt quá số lượng trong kho
+        // Kiểm tra số lượng không vượt quá số lượng trong kho (theo màu của cart item)
         Product product = cart.getProduct();
-        if (quantity > product.getQuantity()) {
-            throw new RuntimeException("Số lượng sản phẩm không đủ. Hiện còn " + product.getQuantity() + " sản phẩm.");
-        }
+        Long colorId = cart.getColor() != null ? cart.getColor().getId() : null;
+        inventoryService.checkAvailable(product, colorId, quantity);
         
         // Cập nhật số lượng
         cart.setQuantity(quantity);
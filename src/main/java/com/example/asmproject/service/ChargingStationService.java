@@ -1,108 +1,351 @@
 package com.example.asmproject.service;
 
+import com.example.asmproject.dto.StationClusterResponse;
+import com.example.asmproject.dto.StationMapResponse;
+import com.example.asmproject.model.Address;
 import com.example.asmproject.model.ChargingStation;
 import com.example.asmproject.repository.ChargingStationRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Service trạm sạc pin
+ *
+ * Tìm trạm gần nhất / trong bán kính dùng chỉ mục không gian trong bộ nhớ (StationSpatialIndex)
+ * trên các trạm đang hoạt động. Chỉ mục được xây lần đầu khi cần và xây lại sau khi trạm thay đổi
+ * (một luồng xây, các luồng khác chờ; bản xây bắt đầu trước khi trạm thay đổi không được giữ lại).
+ * Cụm trạm theo zoom (StationClusterIndex) được xây một lần, sau đó cập nhật từng trạm khi lưu.
+ * Tìm theo tỉnh / quận huyện đọc từ nhóm trong bộ nhớ (StationRegionIndex), xây cùng chỉ mục không gian.
+ */
 @Service
 @Transactional
 public class ChargingStationService {
-    
+
     @Autowired
     private ChargingStationRepository chargingStationRepository;
-    
+
+    @Autowired
+    private LocationService locationService;
+
+    @Value("${app.stations.max-map-results:5000}")
+    private int maxMapResults;
+
+    @Value("${app.stations.cluster-max-zoom:16}")
+    private int clusterMaxZoom;
+
+    private volatile ActiveStations activeStations;
+
+    // Tăng mỗi lần bỏ chỉ mục: lần xây bắt đầu trước đó không được ghi đè bằng dữ liệu cũ
+    private final AtomicLong indexVersion = new AtomicLong();
+
+    private final Object indexLock = new Object();
+
+    private volatile StationClusterIndex clusterIndex;
+
     /**
      * Lấy tất cả trạm sạc đang hoạt động
      */
     public List<ChargingStation> getAllActiveStations() {
         return chargingStationRepository.findAllActive();
     }
-    
+
+    /**
+     * Tối đa limit trạm đang hoạt động (không truy vấn database khi chỉ mục đã có)
+     */
+    public List<ChargingStation> getActiveStations(int limit) {
+        List<ChargingStation> stations = getActiveIndex().getStations();
+        return stations.size() > limit ? stations.subList(0, limit) : stations;
+    }
+
+    /**
+     * Số trạm đang hoạt động (lấy từ chỉ mục, không COUNT database mỗi lần)
+     */
+    public int getActiveStationCount() {
+        return getActiveIndex().size();
+    }
+
     /**
      * Tìm trạm sạc gần nhất dựa trên tọa độ
-     * 
+     *
      * @param latitude Vĩ độ của vị trí hiện tại
      * @param longitude Kinh độ của vị trí hiện tại
      * @param limit Số lượng trạm cần lấy (mặc định 10)
      * @return Danh sách trạm sạc gần nhất, sắp xếp theo khoảng cách
      */
     public List<ChargingStation> findNearestStations(BigDecimal latitude, BigDecimal longitude, int limit) {
-        List<ChargingStation> allStations = chargingStationRepository.findAllActive();
-        
-        // Tính khoảng cách và sắp xếp
-        return allStations.stream()
-                .map(station -> {
-                    // Tính khoảng cách và lưu tạm (sử dụng một cách đơn giản)
-                    double distance = station.calculateDistance(latitude, longitude);
-                    return new StationWithDistance(station, distance);
-                })
-                .sorted(Comparator.comparingDouble(StationWithDistance::getDistance))
-                .limit(limit)
-                .map(StationWithDistance::getStation)
-                .collect(Collectors.toList());
-    }
-    
+        return findNearestWithDistances(latitude, longitude, limit).getStations();
+    }
+
+    /**
+     * Tìm trạm sạc gần nhất, kèm khoảng cách (km) tới từng trạm
+     */
+    public StationSpatialIndex.Hits findNearestWithDistances(BigDecimal latitude, BigDecimal longitude, int limit) {
+        return getActiveIndex().nearest(latitude.doubleValue(), longitude.doubleValue(), limit);
+    }
+
     /**
      * Tìm trạm sạc gần nhất (mặc định 10 trạm)
      */
     public List<ChargingStation> findNearestStations(BigDecimal latitude, BigDecimal longitude) {
         return findNearestStations(latitude, longitude, 10);
     }
-    
+
+    /**
+     * Tìm trạm sạc trong bán kính radiusKm (km), sắp xếp theo khoảng cách
+     */
+    public List<ChargingStation> findStationsWithinRadius(BigDecimal latitude, BigDecimal longitude, double radiusKm) {
+        return getActiveIndex().withinRadius(latitude.doubleValue(), longitude.doubleValue(), radiusKm).getStations();
+    }
+
+    /**
+     * Trạm trong khung bản đồ dạng mảng song song (tối đa app.stations.max-map-results trạm)
+     */
+    public StationMapResponse getMapStationsInBounds(double minLat, double minLng, double maxLat, double maxLng) {
+        return toMapResponse(getActiveIndex().withinBounds(minLat, minLng, maxLat, maxLng), null);
+    }
+
+    /**
+     * Trạm trong bán kính radiusKm dạng mảng song song kèm khoảng cách, gần nhất trước
+     * (tối đa app.stations.max-map-results trạm)
+     */
+    public StationMapResponse getMapStationsWithinRadius(double latitude, double longitude, double radiusKm) {
+        StationSpatialIndex.Hits hits = getActiveIndex().withinRadius(latitude, longitude, radiusKm);
+        return toMapResponse(hits.getStations(), hits.getDistancesKm());
+    }
+
+    /**
+     * Cụm trạm trong khung bản đồ ở mức zoom. Zoom lớn hơn app.stations.cluster-max-zoom
+     * trả về từng trạm (mỗi cụm 1 trạm) lấy từ chỉ mục không gian.
+     */
+    public StationClusterResponse getStationClusters(double minLat, double minLng, double maxLat, double maxLng,
+            int zoom) {
+        if (zoom > clusterMaxZoom) {
+            List<ChargingStation> stations = getActiveIndex().withinBounds(minLat, minLng, maxLat, maxLng);
+            int count = Math.min(stations.size(), maxMapResults);
+            StationClusterResponse response = newClusterResponse(zoom, count);
+            for (int i = 0; i < count; i++) {
+                ChargingStation station = stations.get(i);
+                response.getLatitudes()[i] = station.getLatitude().doubleValue();
+                response.getLongitudes()[i] = station.getLongitude().doubleValue();
+                response.getCounts()[i] = 1;
+                response.getStationIds()[i] = station.getId();
+            }
+            return response;
+        }
+
+        List<StationClusterIndex.Cluster> clusters = getClusterIndex().clusters(minLat, minLng, maxLat, maxLng, zoom);
+        StationClusterResponse response = newClusterResponse(zoom, clusters.size());
+        for (int i = 0; i < clusters.size(); i++) {
+            StationClusterIndex.Cluster cluster = clusters.get(i);
+            response.getLatitudes()[i] = cluster.getLatitude();
+            response.getLongitudes()[i] = cluster.getLongitude();
+            response.getCounts()[i] = cluster.getCount();
+            response.getStationIds()[i] = cluster.getStationId() != null ? cluster.getStationId() : 0;
+        }
+        return response;
+    }
+
     /**
      * Tìm trạm sạc theo tỉnh/thành phố
      */
     public List<ChargingStation> findByProvince(String province) {
-        return chargingStationRepository.findByProvince(province);
+        return getActiveStations().regions.inProvince(locationService.provinceKey(province));
     }
-    
+
     /**
      * Tìm trạm sạc theo quận/huyện
      */
     public List<ChargingStation> findByDistrict(String district) {
-        return chargingStationRepository.findByDistrict(district);
+        return getActiveStations().regions.inDistrict(LocationService.normalizeRegionName(district));
     }
-    
+
+    /**
+     * Gợi ý trạm cho một địa chỉ trong sổ địa chỉ: các trạm cùng quận/huyện trước,
+     * sau đó các trạm khác trong cùng tỉnh (tối đa limit trạm)
+     */
+    public List<ChargingStation> suggestStationsForAddress(Address address, int limit) {
+        StationRegionIndex regions = getActiveStations().regions;
+        String province = locationService.provinceKey(address.getProvince());
+        List<ChargingStation> sameDistrict = regions.inDistrict(province,
+                LocationService.normalizeRegionName(address.getDistrict()));
+
+        List<ChargingStation> result = new ArrayList<>(sameDistrict.subList(0, Math.min(limit, sameDistrict.size())));
+        Set<ChargingStation> added = new HashSet<>(sameDistrict);
+        for (ChargingStation station : regions.inProvince(province)) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (!added.contains(station)) {
+                result.add(station);
+            }
+        }
+        return result;
+    }
+
     /**
      * Lưu trạm sạc
      */
     public ChargingStation saveStation(ChargingStation station) {
-        return chargingStationRepository.save(station);
+        ChargingStation saved = chargingStationRepository.save(station);
+        invalidateIndex();
+        updateClusters(saved);
+        return saved;
     }
-    
+
     /**
      * Lấy trạm sạc theo ID
      */
     public ChargingStation getStationById(Long id) {
         return chargingStationRepository.findById(id).orElse(null);
     }
-    
+
     /**
-     * Helper class để lưu trạm và khoảng cách
+     * Bỏ chỉ mục hiện tại, lần tìm kiếm sau sẽ xây lại từ database.
+     * Nếu đang trong transaction thì bỏ thêm lần nữa sau khi commit, để lượt tìm kiếm xen giữa
+     * không giữ lại chỉ mục xây từ dữ liệu cũ.
      */
-    private static class StationWithDistance {
-        private final ChargingStation station;
-        private final double distance;
-        
-        public StationWithDistance(ChargingStation station, double distance) {
-            this.station = station;
-            this.distance = distance;
+    public void invalidateIndex() {
+        dropIndex();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dropIndex();
+                }
+            });
         }
-        
-        public ChargingStation getStation() {
-            return station;
+    }
+
+    private void dropIndex() {
+        indexVersion.incrementAndGet();
+        activeStations = null;
+    }
+
+    /**
+     * Cập nhật cụm của trạm sau khi commit (nếu cụm đã được xây)
+     */
+    private void updateClusters(ChargingStation station) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyClusterUpdate(station);
+                }
+            });
+        } else {
+            applyClusterUpdate(station);
         }
-        
-        public double getDistance() {
-            return distance;
+    }
+
+    private synchronized void applyClusterUpdate(ChargingStation station) {
+        StationClusterIndex index = clusterIndex;
+        if (index != null) {
+            index.update(station);
         }
     }
-}
 
+    private StationClusterIndex getClusterIndex() {
+        StationClusterIndex index = clusterIndex;
+        if (index == null) {
+            // Xây dưới cùng khóa với applyClusterUpdate: cập nhật commit trong lúc xây sẽ được áp dụng sau khi xây xong
+            synchronized (this) {
+                index = clusterIndex;
+                if (index == null) {
+                    index = StationClusterIndex.build(chargingStationRepository.findAllActive(), clusterMaxZoom);
+                    clusterIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static StationClusterResponse newClusterResponse(int zoom, int count) {
+        StationClusterResponse response = new StationClusterResponse();
+        response.setZoom(zoom);
+        response.setCount(count);
+        response.setLatitudes(new double[count]);
+        response.setLongitudes(new double[count]);
+        response.setCounts(new int[count]);
+        response.setStationIds(new long[count]);
+        return response;
+    }
+
+    private StationMapResponse toMapResponse(List<ChargingStation> stations, double[] distancesKm) {
+        int count = Math.min(stations.size(), maxMapResults);
+        long[] ids = new long[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        int[] availableBatteries = new int[count];
+        for (int i = 0; i < count; i++) {
+            ChargingStation station = stations.get(i);
+            ids[i] = station.getId();
+            latitudes[i] = station.getLatitude().doubleValue();
+            longitudes[i] = station.getLongitude().doubleValue();
+            availableBatteries[i] = station.getAvailableBatteries() != null ? station.getAvailableBatteries() : 0;
+        }
+
+        StationMapResponse response = new StationMapResponse();
+        response.setCount(count);
+        response.setTruncated(stations.size() > count);
+        response.setIds(ids);
+        response.setLatitudes(latitudes);
+        response.setLongitudes(longitudes);
+        response.setAvailableBatteries(availableBatteries);
+        if (distancesKm != null) {
+            response.setDistancesKm(distancesKm.length > count ? Arrays.copyOf(distancesKm, count) : distancesKm);
+        }
+        return response;
+    }
+
+    private StationSpatialIndex getActiveIndex() {
+        return getActiveStations().spatial;
+    }
+
+    /**
+     * Chỉ mục không gian và nhóm tỉnh / quận huyện của các trạm đang hoạt động
+     */
+    private ActiveStations getActiveStations() {
+        ActiveStations stations = activeStations;
+        if (stations == null) {
+            // Một luồng xây, các luồng khác chờ và dùng kết quả đó
+            synchronized (indexLock) {
+                stations = activeStations;
+                if (stations == null) {
+                    long version = indexVersion.get();
+                    List<ChargingStation> active = chargingStationRepository.findAllActive();
+                    stations = new ActiveStations(StationSpatialIndex.build(active),
+                            StationRegionIndex.build(active, locationService::provinceKey));
+                    if (indexVersion.get() == version) {
+                        activeStations = stations;
+                    }
+                }
+            }
+        }
+        return stations;
+    }
+
+    /**
+     * Các chỉ mục trên cùng một lần đọc danh sách trạm đang hoạt động
+     */
+    private static final class ActiveStations {
+        private final StationSpatialIndex spatial;
+        private final StationRegionIndex regions;
+
+        private ActiveStations(StationSpatialIndex spatial, StationRegionIndex regions) {
+            this.spatial = spatial;
+            this.regions = regions;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.dto.OrderReportResponse;
+import com.example.asmproject.model.Order;
+import com.example.asmproject.repository.DailySalesRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Service duy trì bảng tổng hợp daily_sales và phục vụ số liệu doanh thu cho dashboard / báo cáo
+ *
+ * - Tạo đơn hàng: +1 đơn vào nhóm (ngày đặt, PENDING, phương thức giao hàng)
+ * - Đổi trạng thái: chuyển đơn từ nhóm trạng thái cũ sang nhóm trạng thái mới
+ *   (vẫn tính theo ngày đặt hàng, giống cách tính doanh thu trước đây)
+ * - Mỗi thay đổi là một câu UPDATE cộng dồn trong cùng transaction với đơn hàng
+ * - Job đối soát hằng đêm tính lại các ngày gần đây trực tiếp từ bảng orders
+ *   để sửa mọi sai lệch (dữ liệu sửa tay, đơn tạo từ đường khác...)
+ */
+@Service
+@Transactional
+public class DailySalesService {
+
+    private static final String INCREMENT_SQL =
+            "UPDATE daily_sales SET order_count = order_count + ?, revenue = revenue + ?, " +
+            "discount = discount + ?, shipping_fee = shipping_fee + ?, updated_at = ? " +
+            "WHERE sales_date = ? AND order_status = ? AND delivery_method = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO daily_sales (sales_date, order_status, delivery_method, order_count, " +
+            "revenue, discount, shipping_fee, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_RANGE_SQL =
+            "DELETE FROM daily_sales WHERE sales_date >= ? AND sales_date <= ?";
+
+    private static final String REBUILD_RANGE_SQL =
+            "INSERT INTO daily_sales (sales_date, order_status, delivery_method, order_count, " +
+            "revenue, discount, shipping_fee, updated_at) " +
+            "SELECT CAST(created_at AS DATE), order_status, delivery_method, COUNT(*), " +
+            "SUM(total), SUM(discount), SUM(shipping_fee), ? " +
+            "FROM orders WHERE created_at >= ? AND created_at < ? " +
+            "GROUP BY CAST(created_at AS DATE), order_status, delivery_method";
+
+    @Autowired
+    private DailySalesRepository dailySalesRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.daily-sales.reconcile-days:35}")
+    private int reconcileDays;
+
+    /**
+     * Ghi nhận đơn hàng mới vào bảng tổng hợp
+     */
+    public void recordOrderCreated(Order order) {
+        apply(order, order.getOrderStatus(), 1);
+    }
+
+    /**
+     * Chuyển đơn hàng từ nhóm trạng thái cũ sang nhóm trạng thái hiện tại
+     */
+    public void recordStatusChange(Order order, Order.OrderStatus oldStatus) {
+        if (oldStatus == order.getOrderStatus()) {
+            return;
+        }
+        apply(order, oldStatus, -1);
+        apply(order, order.getOrderStatus(), 1);
+    }
+
+    /**
+     * Tính lại bảng tổng hợp cho khoảng ngày [from, to] từ bảng orders (set-based, một transaction)
+     */
+    public void rebuild(LocalDate from, LocalDate to) {
+        jdbcTemplate.update(DELETE_RANGE_SQL, Date.valueOf(from), Date.valueOf(to));
+        jdbcTemplate.update(REBUILD_RANGE_SQL, Timestamp.valueOf(LocalDateTime.now()),
+                Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * Đối soát hằng đêm: tính lại app.daily-sales.reconcile-days ngày gần nhất
+     * (đủ để bao trọn các đơn vừa được giao / hủy / trả hàng)
+     */
+    @Scheduled(cron = "${app.daily-sales.reconcile-cron:0 30 2 * * *}")
+    public void reconcileRecentDays() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(reconcileDays), today);
+    }
+
+    /**
+     * Doanh thu theo từng ngày trong khoảng [from, to], ngày không có đơn = 0
+     */
+    @Transactional(readOnly = true)
+    public Map<LocalDate, BigDecimal> getDailyRevenue(Order.OrderStatus status, LocalDate from, LocalDate to) {
+        Map<LocalDate, BigDecimal> result = new LinkedHashMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            result.put(date, BigDecimal.ZERO);
+        }
+        for (Object[] row : dailySalesRepository.sumRevenueByDate(status, from, to)) {
+            result.put((LocalDate) row[0], (BigDecimal) row[1]);
+        }
+        return result;
+    }
+
+    /**
+     * Tổng doanh thu của một trạng thái trong khoảng [from, to]
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getRevenue(Order.OrderStatus status, LocalDate from, LocalDate to) {
+        return dailySalesRepository.sumRevenue(status, from, to);
+    }
+
+    /**
+     * Báo cáo tổng hợp đơn hàng trong khoảng ngày (doanh thu = đơn đã giao)
+     */
+    @Transactional(readOnly = true)
+    public OrderReportResponse buildReport(LocalDate fromDate, LocalDate toDate) {
+        LocalDate from = fromDate != null ? fromDate : LocalDate.of(2000, 1, 1);
+        LocalDate to = toDate != null ? toDate : LocalDate.now();
+
+        long totalOrders = 0;
+        long fastShipping = 0;
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        for (Object[] row : dailySalesRepository.summarize(from, to)) {
+            Order.OrderStatus status = (Order.OrderStatus) row[0];
+            Order.DeliveryMethod deliveryMethod = (Order.DeliveryMethod) row[1];
+            long count = ((Number) row[2]).longValue();
+            totalOrders += count;
+            if (deliveryMethod == Order.DeliveryMethod.FAST) {
+                fastShipping += count;
+            }
+            if (status == Order.OrderStatus.DELIVERED) {
+                totalRevenue = totalRevenue.add((BigDecimal) row[3]);
+            }
+        }
+
+        OrderReportResponse report = new OrderReportResponse();
+        report.setFromDate(fromDate);
+        report.setToDate(toDate);
+        report.setTotalOrders(totalOrders);
+        report.setTotalRevenue(totalRevenue);
+        report.setFastShippingOrders(fastShipping);
+        report.setStandardShippingOrders(totalOrders - fastShipping);
+        return report;
+    }
+
+    private void apply(Order order, Order.OrderStatus status, int sign) {
+        LocalDate salesDate = order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+        BigDecimal multiplier = BigDecimal.valueOf(sign);
+        Object[] deltas = {
+                sign,
+                nullToZero(order.getTotal()).multiply(multiplier),
+                nullToZero(order.getDiscount()).multiply(multiplier),
+                nullToZero(order.getShippingFee()).multiply(multiplier)
+        };
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        if (increment(deltas, now, salesDate, status, order.getDeliveryMethod()) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, Date.valueOf(salesDate), status.name(), order.getDeliveryMethod().name(),
+                    deltas[0], deltas[1], deltas[2], deltas[3], now);
+        } catch (DuplicateKeyException e) {
+            // Transaction khác vừa tạo nhóm này: cộng dồn vào dòng đã có
+            increment(deltas, now, salesDate, status, order.getDeliveryMethod());
+        }
+    }
+
+    private int increment(Object[] deltas, Timestamp now, LocalDate salesDate,
+            Order.OrderStatus status, Order.DeliveryMethod deliveryMethod) {
+        return jdbcTemplate.update(INCREMENT_SQL, deltas[0], deltas[1], deltas[2], deltas[3], now,
+                Date.valueOf(salesDate), status.name(), deliveryMethod.name());
+    }
+
+    private static BigDecimal nullToZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+}
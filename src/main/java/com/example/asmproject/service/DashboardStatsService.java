@@ -0,0 +1,137 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.model.Order;
+import com.example.asmproject.repository.OrderRepository;
+import com.example.asmproject.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Bộ đếm thống kê cho dashboard và trang báo cáo admin (số đơn hàng theo trạng thái, số sản phẩm...)
+ *
+ * Số đơn theo trạng thái được lấy bằng MỘT truy vấn GROUP BY vào EnumMap và dùng chung
+ * cho cả hai trang. Giá trị được cache trong bộ nhớ và bị xóa khi có đơn hàng mới (qua outbox),
+ * khi đơn hàng đổi trạng thái, hoặc khi quá app.dashboard.stats-ttl-seconds
+ * (cho các thay đổi khác như admin sửa sản phẩm).
+ */
+@Service
+public class DashboardStatsService implements OrderEventListener {
+
+    private static final String ACTIVE_PRODUCTS = "products:ACTIVE";
+    private static final String OUT_OF_STOCK_PRODUCTS = "products:OUT_OF_STOCK";
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private final long ttlMillis;
+    private final Map<String, Long> counters = new ConcurrentHashMap<>();
+    private volatile Map<Order.OrderStatus, Long> orderStatusCounts;
+    private volatile long loadedAt = System.currentTimeMillis();
+
+    public DashboardStatsService(@Value("${app.dashboard.stats-ttl-seconds:5}") long ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * Đếm đơn hàng theo trạng thái
+     *
+     * @param status Trạng thái (null = tất cả đơn hàng)
+     */
+    public long countOrders(Order.OrderStatus status) {
+        Map<Order.OrderStatus, Long> counts = getOrderStatusCounts();
+        if (status == null) {
+            long total = 0;
+            for (long count : counts.values()) {
+                total += count;
+            }
+            return total;
+        }
+        return counts.get(status);
+    }
+
+    /**
+     * Số đơn hàng của mọi trạng thái (trạng thái không có đơn = 0)
+     */
+    public Map<Order.OrderStatus, Long> getOrderStatusCounts() {
+        expireIfStale();
+        Map<Order.OrderStatus, Long> counts = orderStatusCounts;
+        if (counts == null) {
+            counts = loadOrderStatusCounts();
+            orderStatusCounts = counts;
+        }
+        return counts;
+    }
+
+    public long countActiveProducts() {
+        return get(ACTIVE_PRODUCTS, productRepository::countActiveProducts);
+    }
+
+    public long countOutOfStockProducts() {
+        return get(OUT_OF_STOCK_PRODUCTS, productRepository::countOutOfStockProducts);
+    }
+
+    /**
+     * Xóa toàn bộ bộ đếm, lần đọc tiếp theo sẽ truy vấn lại database.
+     * Trong transaction thì xóa thêm lần nữa sau commit, để một lần nạp lại chạy song song
+     * (đọc dữ liệu trước khi commit) không giữ lại số đếm cũ.
+     */
+    public void invalidate() {
+        clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        }
+    }
+
+    /**
+     * Đơn hàng mới làm thay đổi số đơn theo trạng thái và có thể làm sản phẩm hết hàng
+     */
+    @Override
+    public void onOrderPlaced(Long orderId) {
+        invalidate();
+    }
+
+    private Map<Order.OrderStatus, Long> loadOrderStatusCounts() {
+        Map<Order.OrderStatus, Long> counts = new EnumMap<>(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : orderRepository.countGroupByOrderStatus()) {
+            counts.put((Order.OrderStatus) row[0], ((Number) row[1]).longValue());
+        }
+        return Collections.unmodifiableMap(counts);
+    }
+
+    private long get(String key, Supplier<Long> loader) {
+        expireIfStale();
+        return counters.computeIfAbsent(key, k -> loader.get());
+    }
+
+    private void expireIfStale() {
+        if (System.currentTimeMillis() - loadedAt > ttlMillis) {
+            clear();
+        }
+    }
+
+    private void clear() {
+        orderStatusCounts = null;
+        counters.clear();
+        loadedAt = System.currentTimeMillis();
+    }
+}
@@ -1,16 +1,27 @@
 package com.example.asmproject.service;
 
+import com.example.asmproject.model.Order;
+import com.example.asmproject.model.OrderItem;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.Locale;
+
 @Service
 public class EmailService {
 
+    private static final Logger log = LoggerFactory.getLogger(EmailService.class);
+
     @Value("${app.base-url:http://localhost:8080}")
     private String baseUrl;
 
@@ -202,4 +213,103 @@ public class EmailService {
                 "</body>" +
                 "</html>";
     }
+
+    /**
+     * Gửi email xác nhận đơn hàng (gọi từ luồng nền sau khi đặt hàng)
+     * Cần gọi trong transaction để đọc được user và order items.
+     * Lỗi gửi mail được ném ra (không nuốt lỗi) để outbox giữ sự kiện và gửi lại sau.
+     *
+     * @param order Đơn hàng vừa được đặt
+     * @throws RuntimeException nếu không gửi được email (kể cả MailException khi SMTP lỗi)
+     */
+    public void sendOrderConfirmationEmail(Order order) {
+        String email = order.getUser() != null ? order.getUser().getEmail() : null;
+        if (email == null) {
+            return;
+        }
+        try {
+            if (mailSender != null) {
+                MimeMessage message = mailSender.createMimeMessage();
+                MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+                helper.setFrom(fromEmail, fromName);
+                helper.setTo(email);
+                helper.setSubject("Xác nhận đơn hàng " + order.getOrderCode());
+
+                helper.setText(buildOrderConfirmationEmailHtml(order), true);
+
+                mailSender.send(message);
+                log.info("Email xác nhận đơn hàng {} đã được gửi đến: {}", order.getOrderCode(), email);
+            } else {
+                // Fallback: ghi log nếu chưa cấu hình mail
+                log.info("Xác nhận đơn hàng {} cho {} - tổng tiền: {}", order.getOrderCode(), email,
+                        formatMoney(order.getTotal()));
+            }
+        } catch (MessagingException | UnsupportedEncodingException e) {
+            throw new RuntimeException("Lỗi khi gửi email xác nhận đơn hàng " + order.getOrderCode()
+                    + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tạo nội dung email HTML cho xác nhận đơn hàng
+     */
+    private String buildOrderConfirmationEmailHtml(Order order) {
+        StringBuilder rows = new StringBuilder();
+        for (OrderItem item : order.getOrderItems()) {
+            rows.append("<tr>")
+                    .append("<td>").append(item.getProductName())
+                    .append(item.getColorName() != null ? " - " + item.getColorName() : "").append("</td>")
+                    .append("<td style='text-align: center;'>").append(item.getQuantity()).append("</td>")
+                    .append("<td style='text-align: right;'>").append(formatMoney(item.getSubtotal())).append("</td>")
+                    .append("</tr>");
+        }
+        return "<!DOCTYPE html>" +
+                "<html>" +
+                "<head>" +
+                "<meta charset='UTF-8'>" +
+                "<style>" +
+                "body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }" +
+                ".container { max-width: 600px; margin: 0 auto; padding: 20px; }" +
+                ".header { background: linear-gradient(135deg, #2563eb 0%, #1e40af 100%); color: white; padding: 30px; text-align: center; border-radius: 10px 10px 0 0; }"
+                +
+                ".content { background: #f9fafb; padding: 30px; border-radius: 0 0 10px 10px; }" +
+                "table { width: 100%; border-collapse: collapse; margin: 20px 0; }" +
+                "td, th { padding: 8px; border-bottom: 1px solid #e5e7eb; }" +
+                ".total { font-size: 18px; font-weight: bold; color: #2563eb; text-align: right; }" +
+                ".footer { text-align: center; margin-top: 20px; color: #6b7280; font-size: 12px; }" +
+                "</style>" +
+                "</head>" +
+                "<body>" +
+                "<div class='container'>" +
+                "<div class='header'>" +
+                "<h1>Đặt hàng thành công</h1>" +
+                "</div>" +
+                "<div class='content'>" +
+                "<p>Xin chào <strong>" + order.getUser().getFullName() + "</strong>,</p>" +
+                "<p>Cảm ơn bạn đã đặt hàng tại VinFast. Mã đơn hàng của bạn là <strong>" + order.getOrderCode()
+                + "</strong>.</p>" +
+                "<table>" +
+                "<tr><th style='text-align: left;'>Sản phẩm</th><th>SL</th><th style='text-align: right;'>Thành tiền</th></tr>"
+                + rows +
+                "</table>" +
+                "<p style='text-align: right;'>Giảm giá: " + formatMoney(order.getDiscount()) + "</p>" +
+                "<p style='text-align: right;'>Phí vận chuyển: " + formatMoney(order.getShippingFee()) + "</p>" +
+                "<p class='total'>Tổng cộng: " + formatMoney(order.getTotal()) + "</p>" +
+                "<p>Bạn có thể theo dõi trạng thái đơn hàng tại: <a href='" + baseUrl + "/tai-khoan/don-hang'>"
+                + baseUrl + "/tai-khoan/don-hang</a></p>" +
+                "<p>Trân trọng,<br><strong>Đội ngũ VinFast</strong></p>" +
+                "</div>" +
+                "<div class='footer'>" +
+                "<p>Email này được gửi tự động, vui lòng không trả lời.</p>" +
+                "</div>" +
+                "</div>" +
+                "</body>" +
+                "</html>";
+    }
+
+    private String formatMoney(BigDecimal amount) {
+        BigDecimal value = amount != null ? amount : BigDecimal.ZERO;
+        return NumberFormat.getNumberInstance(new Locale("vi", "VN")).format(value) + " ₫";
+    }
 }
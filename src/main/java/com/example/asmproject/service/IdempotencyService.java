@@ -0,0 +1,261 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.model.IdempotencyRecord;
+import com.example.asmproject.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Service xử lý header Idempotency-Key cho các API đặt hàng
+ *
+ * Cách hoạt động:
+ * 1. Cache trong bộ nhớ (giới hạn số lượng + TTL) giữ kết quả của request đầu tiên.
+ *    Request trùng đến cùng lúc sẽ chờ kết quả của request đầu tiên thay vì chạy lại checkout.
+ * 2. Bảng idempotency_keys dùng chung giữa nhiều instance: request đầu tiên "giữ chỗ"
+ *    bằng một dòng IN_PROGRESS (unique key), instance khác gặp key này sẽ trả lại kết quả
+ *    đã lưu hoặc báo 409 nếu request gốc vẫn đang chạy.
+ * 3. Chỉ lưu kết quả thành công (2xx). Request lỗi sẽ giải phóng key để client thử lại;
+ *    action đã thành công thì không bao giờ giải phóng key (kể cả khi lưu kết quả thất bại).
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final long ttlMinutes;
+    private final long waitSeconds;
+    private final Cache<String, CompletableFuture<ResponseEntity<?>>> inFlight;
+
+    public IdempotencyService(@Value("${app.idempotency.ttl-minutes:60}") long ttlMinutes,
+            @Value("${app.idempotency.max-entries:10000}") long maxEntries,
+            @Value("${app.idempotency.wait-seconds:15}") long waitSeconds) {
+        this.ttlMinutes = ttlMinutes;
+        this.waitSeconds = waitSeconds;
+        this.inFlight = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttlMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * Thực thi action đúng một lần cho mỗi (scope, key)
+     *
+     * @param scope  Phạm vi của key (email người dùng hiện tại) để key của user này
+     *               không trả về kết quả của user khác
+     * @param key    Giá trị header Idempotency-Key (null/rỗng = không áp dụng)
+     * @param action Logic xử lý thật (tạo đơn hàng)
+     * @return Kết quả của lần xử lý đầu tiên
+     */
+    public ResponseEntity<?> execute(String scope, String key, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return error(HttpStatus.BAD_REQUEST, "Idempotency-Key không được vượt quá " + MAX_KEY_LENGTH + " ký tự");
+        }
+
+        String fullKey = (scope != null ? scope : "anonymous") + ":" + key.trim();
+        CompletableFuture<ResponseEntity<?>> future = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<?>> existing = inFlight.asMap().putIfAbsent(fullKey, future);
+        if (existing != null) {
+            // Request trùng trong cùng instance: chờ kết quả của request đầu tiên
+            return awaitReplay(existing);
+        }
+
+        try {
+            Optional<ResponseEntity<?>> stored = claim(fullKey);
+            if (stored.isPresent()) {
+                future.complete(stored.get());
+                return stored.get();
+            }
+        } catch (RuntimeException e) {
+            inFlight.invalidate(fullKey);
+            future.completeExceptionally(e);
+            throw e;
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(fullKey);
+            future.completeExceptionally(e);
+            throw e;
+        }
+
+        if (response.getStatusCode().is2xxSuccessful()) {
+            // Action đã commit: từ đây tuyệt đối không giải phóng key, kể cả khi lưu kết quả bị lỗi
+            future.complete(response);
+            completeSafely(fullKey, response);
+        } else {
+            release(fullKey);
+            future.complete(response);
+        }
+        return response;
+    }
+
+    /**
+     * Xóa các key đã hết hạn trong database (cache bộ nhớ tự hết hạn theo TTL)
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval-ms:600000}")
+    public void cleanupExpired() {
+        idempotencyRecordRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    /**
+     * Giữ chỗ key trong database
+     *
+     * @return Kết quả đã lưu nếu key đã được xử lý xong bởi instance khác,
+     *         empty nếu request hiện tại được quyền xử lý
+     */
+    private Optional<ResponseEntity<?>> claim(String fullKey) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusMinutes(ttlMinutes);
+        if (tryInsert(fullKey, expiresAt)) {
+            return Optional.empty();
+        }
+        // Key cũ đã hết hạn: giữ chỗ lại bằng một UPDATE có điều kiện, các request đồng thời
+        // không thể cùng thắng (không xóa rồi INSERT lại)
+        if (idempotencyRecordRepository.reclaimExpired(fullKey, now, expiresAt) == 1) {
+            return Optional.empty();
+        }
+        IdempotencyRecord record = idempotencyRecordRepository.findByKey(fullKey).orElse(null);
+        if (record == null) {
+            // Key vừa được giải phóng: thử giữ chỗ thêm một lần
+            if (tryInsert(fullKey, expiresAt)) {
+                return Optional.empty();
+            }
+            record = idempotencyRecordRepository.findByKey(fullKey).orElse(null);
+        }
+        if (record != null && record.getStatus() == IdempotencyRecord.Status.COMPLETED) {
+            return Optional.of(replay(record));
+        }
+        return Optional.of(error(HttpStatus.CONFLICT, "Yêu cầu đặt hàng này đang được xử lý"));
+    }
+
+    /**
+     * INSERT dòng IN_PROGRESS cho key
+     *
+     * @return false nếu key đã tồn tại (unique constraint)
+     */
+    private boolean tryInsert(String fullKey, LocalDateTime expiresAt) {
+        try {
+            idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(fullKey, expiresAt));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Lưu kết quả thành công. Nếu không lưu được body thì thử lưu "bia mộ" (COMPLETED, chỉ có status);
+     * nếu database vẫn lỗi thì để nguyên dòng IN_PROGRESS tới khi hết hạn: request gửi lại nhận 409
+     * chứ không chạy lại checkout.
+     */
+    private void completeSafely(String fullKey, ResponseEntity<?> response) {
+        try {
+            complete(fullKey, response);
+        } catch (RuntimeException e) {
+            log.warn("Không lưu được kết quả cho Idempotency-Key {}, lưu trạng thái không kèm body", fullKey, e);
+            try {
+                markCompleted(fullKey, response.getStatusCode().value());
+            } catch (RuntimeException again) {
+                log.error("Không cập nhật được Idempotency-Key {}, giữ trạng thái IN_PROGRESS tới khi hết hạn",
+                        fullKey, again);
+            }
+        }
+    }
+
+    private void markCompleted(String fullKey, int status) {
+        idempotencyRecordRepository.findByKey(fullKey).ifPresent(record -> {
+            record.setStatus(IdempotencyRecord.Status.COMPLETED);
+            record.setResponseStatus(status);
+            record.setResponseBody(null);
+            idempotencyRecordRepository.save(record);
+        });
+    }
+
+    private void complete(String fullKey, ResponseEntity<?> response) {
+        idempotencyRecordRepository.findByKey(fullKey).ifPresent(record -> {
+            record.setStatus(IdempotencyRecord.Status.COMPLETED);
+            record.setResponseStatus(response.getStatusCode().value());
+            try {
+                record.setResponseBody(objectMapper.writeValueAsString(response.getBody()));
+            } catch (Exception e) {
+                // Body không serialize được: chỉ lưu status, lần gửi lại vẫn không chạy lại checkout
+                record.setResponseBody(null);
+            }
+            idempotencyRecordRepository.save(record);
+        });
+    }
+
+    private void release(String fullKey) {
+        inFlight.invalidate(fullKey);
+        idempotencyRecordRepository.deleteByKey(fullKey);
+    }
+
+    private ResponseEntity<?> awaitReplay(CompletableFuture<ResponseEntity<?>> existing) {
+        try {
+            ResponseEntity<?> response = existing.get(waitSeconds, TimeUnit.SECONDS);
+            return ResponseEntity.status(response.getStatusCode())
+                    .headers(response.getHeaders())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(response.getBody());
+        } catch (TimeoutException e) {
+            return error(HttpStatus.CONFLICT, "Yêu cầu đặt hàng này đang được xử lý");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error(HttpStatus.CONFLICT, "Yêu cầu đặt hàng này đang được xử lý");
+        } catch (Exception e) {
+            // Request gốc bị lỗi: key đã được giải phóng, client có thể gửi lại
+            return error(HttpStatus.CONFLICT, "Yêu cầu trước đó với cùng Idempotency-Key đã thất bại, vui lòng thử lại");
+        }
+    }
+
+    private ResponseEntity<?> replay(IdempotencyRecord record) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(record.getResponseStatus())
+                .header(REPLAYED_HEADER, "true");
+        if (record.getResponseBody() == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.APPLICATION_JSON).body(record.getResponseBody());
+    }
+
+    private ResponseEntity<?> error(HttpStatus status, String message) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("success", false);
+        body.put("message", message);
+        return ResponseEntity.status(status).body(body);
+    }
+}
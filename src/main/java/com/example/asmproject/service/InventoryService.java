@@ -0,0 +1,193 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.model.Color;
+import com.example.asmproject.model.OrderItem;
+import com.example.asmproject.model.Product;
+import com.example.asmproject.model.ProductColor;
+import com.example.asmproject.repository.ColorRepository;
+import com.example.asmproject.repository.ProductColorRepository;
+import com.example.asmproject.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service quản lý tồn kho theo (sản phẩm, màu sắc)
+ *
+ * Nguồn dữ liệu gốc là bảng product_colors. Cột products.quantity chỉ là tổng
+ * được suy ra và được trừ cùng lúc với tồn kho của màu trong cùng transaction.
+ * Mọi thao tác trừ kho đều là một câu UPDATE có điều kiện (quantity >= ?),
+ * gửi theo JDBC batch cho cả đơn hàng, nên hai đơn hàng đồng thời không thể
+ * bán vượt số lượng của một màu.
+ *
+ * Sản phẩm không có màu (colorId = null) vẫn dùng trực tiếp products.quantity.
+ * Dòng chọn màu mà sản phẩm không có tồn kho cho màu đó thì đơn hàng bị từ chối
+ * (không lấy tổng tồn kho của sản phẩm thay thế).
+ */
+@Service
+@Transactional
+public class InventoryService {
+
+    private static final String DECREMENT_COLOR_SQL =
+            "UPDATE product_colors SET quantity = quantity - ? " +
+            "WHERE product_id = ? AND color_id = ? AND quantity >= ?";
+
+    // SQL Server dùng giá trị cũ của quantity cho mọi biểu thức SET, nên
+    // "quantity <= ?" nghĩa là sau khi trừ sẽ hết hàng
+    private static final String DECREMENT_PRODUCT_SQL =
+            "UPDATE products SET quantity = quantity - ?, " +
+            "status = CASE WHEN quantity <= ? THEN ? ELSE status END " +
+            "WHERE id = ? AND quantity >= ?";
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductColorRepository productColorRepository;
+
+    @Autowired
+    private ColorRepository colorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Lấy số lượng còn bán được của sản phẩm theo màu
+     *
+     * @param product Sản phẩm
+     * @param colorId ID màu sắc (null nếu không chọn màu)
+     * @return Số lượng tồn kho của màu (0 nếu sản phẩm không bán màu này), hoặc tổng tồn kho nếu không chọn màu
+     */
+    @Transactional(readOnly = true)
+    public int getAvailableStock(Product product, Long colorId) {
+        if (colorId != null) {
+            return productColorRepository.findQuantity(product.getId(), colorId).orElse(0);
+        }
+        return product.getQuantity() != null ? product.getQuantity() : 0;
+    }
+
+    /**
+     * Kiểm tra đủ hàng trước khi thêm vào giỏ / cập nhật giỏ
+     *
+     * @throws RuntimeException nếu không đủ số lượng
+     */
+    @Transactional(readOnly = true)
+    public void checkAvailable(Product product, Long colorId, int quantity) {
+        int available = getAvailableStock(product, colorId);
+        if (quantity > available) {
+            throw new RuntimeException("Số lượng sản phẩm không đủ. Hiện còn " + available + " sản phẩm.");
+        }
+    }
+
+    /**
+     * Trừ tồn kho cho toàn bộ dòng của một đơn hàng
+     * - Dòng có màu: trừ product_colors (một JDBC batch cho mọi dòng)
+     * - Tổng sản phẩm: gộp số lượng theo sản phẩm rồi trừ products (một JDBC batch)
+     * Mỗi câu lệnh là UPDATE có điều kiện, transaction sẽ rollback nếu một dòng không đủ hàng.
+     *
+     * @param items Các dòng đơn hàng (cần product, color, quantity)
+     * @throws RuntimeException nếu không đủ số lượng
+     */
+    public void decreaseStock(List<OrderItem> items) {
+        List<OrderItem> colorLines = new ArrayList<>();
+        Map<Long, Integer> productTotals = new LinkedHashMap<>();
+        Map<Long, String> productNames = new HashMap<>();
+        for (OrderItem item : items) {
+            if (item.getProduct() == null) {
+                continue;
+            }
+            if (item.getColor() != null) {
+                colorLines.add(item);
+            }
+            productTotals.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            productNames.putIfAbsent(item.getProduct().getId(), item.getProductName());
+        }
+
+        if (!colorLines.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(colorLines.size());
+            for (OrderItem item : colorLines) {
+                args.add(new Object[] { item.getQuantity(), item.getProduct().getId(),
+                        item.getColor().getId(), item.getQuantity() });
+            }
+            int[] counts = jdbcTemplate.batchUpdate(DECREMENT_COLOR_SQL, args);
+            for (int i = 0; i < counts.length; i++) {
+                OrderItem item = colorLines.get(i);
+                // 0 dòng: hết hàng, hoặc sản phẩm không bán màu này (không có dòng tồn kho của màu)
+                if (counts[i] == 0) {
+                    if (productColorRepository.findQuantity(item.getProduct().getId(), item.getColor().getId()).isEmpty()) {
+                        throw new RuntimeException("Sản phẩm " + item.getProductName()
+                                + " không có màu " + item.getColorName() + ".");
+                    }
+                    throw new RuntimeException("Sản phẩm " + item.getProductName()
+                            + " (màu đã chọn) không đủ số lượng trong kho.");
+                }
+            }
+        }
+
+        if (!productTotals.isEmpty()) {
+            List<Long> productIds = new ArrayList<>(productTotals.keySet());
+            List<Object[]> args = new ArrayList<>(productIds.size());
+            for (Long productId : productIds) {
+                int quantity = productTotals.get(productId);
+                args.add(new Object[] { quantity, quantity, Product.ProductStatus.OUT_OF_STOCK.name(),
+                        productId, quantity });
+            }
+            int[] counts = jdbcTemplate.batchUpdate(DECREMENT_PRODUCT_SQL, args);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    throw new RuntimeException("Sản phẩm " + productNames.get(productIds.get(i))
+                            + " không đủ số lượng trong kho.");
+                }
+            }
+        }
+    }
+
+    /**
+     * Admin đặt tồn kho cho một màu của sản phẩm
+     * Tổng tồn kho của sản phẩm được tính lại chỉ cho sản phẩm này
+     *
+     * @return ProductColor đã được lưu
+     */
+    public ProductColor setColorStock(Long productId, Long colorId, int quantity) {
+        if (quantity < 0) {
+            throw new RuntimeException("Số lượng không được âm");
+        }
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại"));
+        Color color = colorRepository.findById(colorId)
+                .orElseThrow(() -> new RuntimeException("Màu sắc không tồn tại"));
+
+        ProductColor productColor = productColorRepository.findByProductIdAndColorId(productId, colorId)
+                .orElseGet(() -> new ProductColor(product, color, 0));
+        productColor.setQuantity(quantity);
+        productColor = productColorRepository.save(productColor);
+
+        syncProductTotal(productId);
+        return productColor;
+    }
+
+    /**
+     * Sản phẩm có quản lý tồn kho theo màu hay không
+     * (nếu có thì products.quantity là giá trị suy ra, không được sửa trực tiếp)
+     */
+    @Transactional(readOnly = true)
+    public boolean isColorManaged(Long productId) {
+        return productColorRepository.existsByProductId(productId);
+    }
+
+    /**
+     * Đồng bộ tổng tồn kho của sản phẩm từ product_colors (nếu sản phẩm có màu)
+     */
+    public void syncProductTotal(Long productId) {
+        if (isColorManaged(productId)) {
+            productRepository.syncQuantityFromColors(productId);
+        }
+    }
+}
@@ -14,12 +14,17 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.InputStream;
+import java.text.Normalizer;
 import java.util.*;
 
 @Service
 @Transactional
 public class LocationService {
     
+    // Tiền tố hành chính bỏ đi khi chuẩn hóa tên (sau khi bỏ dấu, chữ thường)
+    private static final String[] REGION_PREFIXES = {
+            "thanh pho ", "tp ", "tinh ", "quan ", "huyen ", "thi xa " };
+    
     @Autowired
     private ProvinceRepository provinceRepository;
     
@@ -31,6 +36,9 @@ public class LocationService {
     
     private final ObjectMapper objectMapper = new ObjectMapper();
     
+    // Tên tỉnh đã chuẩn hóa -> mã tỉnh TMS, đọc từ JSON một lần
+    private volatile Map<String, String> provinceCodesByName;
+    
     /**
      * Đọc dữ liệu từ JSON file (không cache, đọc mỗi lần)
      */
@@ -62,6 +70,61 @@ public class LocationService {
         return provinces;
     }
     
+    /**
+     * Khóa nhóm theo tỉnh: mã tỉnh TMS nếu nhận ra được (từ dạng "mã,Tên" của địa chỉ hoặc từ tên tỉnh
+     * trong danh mục), ngược lại là tên đã chuẩn hóa. Ví dụ "Hà Nội", "Thành phố Hà Nội", "101,Thành phố Hà Nội" -> "101"
+     */
+    public String provinceKey(String province) {
+        if (province == null || province.isBlank()) {
+            return null;
+        }
+        int comma = province.indexOf(',');
+        if (comma > 0) {
+            String code = province.substring(0, comma).trim();
+            if (code.chars().allMatch(Character::isDigit)) {
+                return code;
+            }
+        }
+        String name = normalizeRegionName(province);
+        Map<String, String> codes = provinceCodesByName;
+        if (codes == null) {
+            codes = new HashMap<>();
+            for (JsonNode provinceNode : readJsonData()) {
+                codes.put(normalizeRegionName(provinceNode.get("tentinhmoi").asText()), provinceNode.get("matinhTMS").asText());
+            }
+            provinceCodesByName = codes;
+        }
+        return codes.getOrDefault(name, name);
+    }
+    
+    /**
+     * Chuẩn hóa tên tỉnh / quận / huyện để so sánh: bỏ phần "mã," phía trước, bỏ dấu, chữ thường,
+     * bỏ tiền tố hành chính. Ví dụ "TP. Hồ Chí Minh" và "Tp Hồ Chí Minh" -> "ho chi minh", "Quận Cầu Giấy" -> "cau giay"
+     */
+    public static String normalizeRegionName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String value = name;
+        int comma = value.lastIndexOf(',');
+        if (comma >= 0) {
+            value = value.substring(comma + 1);
+        }
+        value = Normalizer.normalize(value, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replace('đ', 'd').replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT)
+                .replace('.', ' ')
+                .trim()
+                .replaceAll("\\s+", " ");
+        for (String prefix : REGION_PREFIXES) {
+            if (value.startsWith(prefix) && value.length() > prefix.length()) {
+                return value.substring(prefix.length());
+            }
+        }
+        return value;
+    }
+    
     /**
      * Lấy danh sách quận/huyện theo tỉnh từ JSON
      * Parse từ mã phường/xã để tách ra quận/huyện và lấy tên từ tên phường/xã
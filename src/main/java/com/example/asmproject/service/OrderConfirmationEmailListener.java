@@ -0,0 +1,25 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Gửi email xác nhận đơn hàng cho khách sau khi đặt hàng thành công
+ */
+@Component
+public class OrderConfirmationEmailListener implements OrderEventListener {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void onOrderPlaced(Long orderId) {
+        orderRepository.findById(orderId).ifPresent(emailService::sendOrderConfirmationEmail);
+    }
+}
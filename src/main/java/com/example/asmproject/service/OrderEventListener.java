@@ -0,0 +1,17 @@
+package com.example.asmproject.service;
+
+/**
+ * Xử lý hậu kỳ sau khi đơn hàng được đặt (gửi email, cập nhật thống kê, làm mới cache...)
+ *
+ * Được OutboxService gọi trên luồng nền sau khi transaction đặt hàng đã commit,
+ * không nằm trong thời gian phản hồi của request checkout.
+ * Sự kiện có thể được giao lại (at-least-once) nên cài đặt cần chịu được việc gọi lặp.
+ * Ném exception để yêu cầu thử lại sau; khi thử lại, listener đã xử lý xong sự kiện không bị gọi lại.
+ */
+public interface OrderEventListener {
+
+    /**
+     * @param orderId ID đơn hàng vừa được đặt
+     */
+    void onOrderPlaced(Long orderId);
+}
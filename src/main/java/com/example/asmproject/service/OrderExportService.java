@@ -0,0 +1,223 @@
+package com.example.asmproject.service;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Xuất chi tiết đơn hàng (mỗi dòng sản phẩm một dòng) ra CSV hoặc XLSX
+ *
+ * Dữ liệu được đọc bằng con trỏ JDBC chỉ-tiến với fetch size cố định và ghi thẳng
+ * ra OutputStream của HTTP response từng dòng một, không nạp danh sách đơn hàng vào bộ nhớ.
+ * XLSX dùng SXSSFWorkbook: chỉ giữ một cửa sổ dòng cố định trong RAM, phần còn lại
+ * được ghi ra file tạm (nén) - nên xuất dữ liệu cả năm vẫn dùng bộ nhớ không đổi.
+ * Một sheet XLSX chứa tối đa 1.048.576 dòng: vượt quá thì ghi tiếp sang sheet "Đơn hàng (2)", "Đơn hàng (3)"...
+ *
+ * Ô chữ bắt đầu bằng = + - @ (hoặc tab / xuống dòng) có thể bị Excel hiểu là công thức
+ * (tên sản phẩm, tên khách hàng do người dùng nhập): CSV thêm dấu ' phía trước,
+ * XLSX đánh dấu ô bằng quote prefix để luôn hiển thị dạng chữ.
+ */
+@Service
+public class OrderExportService {
+
+    private static final String[] HEADERS = {
+            "Mã đơn hàng", "Ngày đặt", "Khách hàng", "Email", "Trạng thái", "Thanh toán",
+            "Giao hàng", "Sản phẩm", "Màu", "Số lượng", "Đơn giá", "Thành tiền",
+            "Tạm tính đơn", "Giảm giá", "Phí vận chuyển", "Tổng đơn"
+    };
+
+    // Cột số (tính từ 0) để ghi ô kiểu số trong XLSX
+    private static final int QUANTITY_COLUMN = 9;
+    private static final int FIRST_MONEY_COLUMN = 10;
+
+    private static final String EXPORT_SQL =
+            "SELECT o.order_code, o.created_at, u.full_name, u.email, o.order_status, o.payment_status, " +
+            "o.delivery_method, oi.product_name, oi.color_name, oi.quantity, oi.price, oi.subtotal, " +
+            "o.subtotal, o.discount, o.shipping_fee, o.total " +
+            "FROM orders o " +
+            "JOIN users u ON u.id = o.user_id " +
+            "LEFT JOIN order_items oi ON oi.order_id = o.id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? " +
+            "ORDER BY o.created_at, o.id, oi.id";
+
+    // Số dòng dữ liệu tối đa mỗi sheet (trừ dòng tiêu đề)
+    private static final int MAX_DATA_ROWS_PER_SHEET = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1;
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate exportJdbcTemplate;
+    private final int rowWindow;
+
+    public OrderExportService(DataSource dataSource,
+            @Value("${app.export.fetch-size:1000}") int fetchSize,
+            @Value("${app.export.xlsx-row-window:200}") int rowWindow) {
+        // JdbcTemplate riêng cho xuất báo cáo: fetch size lớn, không giới hạn số dòng
+        this.exportJdbcTemplate = new JdbcTemplate(dataSource);
+        this.exportJdbcTemplate.setFetchSize(fetchSize);
+        this.rowWindow = rowWindow;
+    }
+
+    /**
+     * Ghi chi tiết đơn hàng dạng CSV (UTF-8 có BOM để Excel hiển thị đúng tiếng Việt)
+     */
+    public void exportCsv(LocalDate fromDate, LocalDate toDate, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write('\uFEFF');
+        writeCsvLine(writer, HEADERS);
+
+        String[] values = new String[HEADERS.length];
+        try {
+            streamRows(fromDate, toDate, rs -> {
+                for (int i = 0; i < values.length; i++) {
+                    Object value = rs.getObject(i + 1);
+                    if (value instanceof Timestamp) {
+                        values[i] = ((Timestamp) value).toLocalDateTime().format(DATE_TIME_FORMAT);
+                    } else if (value instanceof BigDecimal) {
+                        values[i] = ((BigDecimal) value).toPlainString();
+                    } else if (value instanceof Number) {
+                        values[i] = value.toString();
+                    } else {
+                        values[i] = value != null ? neutralizeFormula(value.toString()) : "";
+                    }
+                }
+                try {
+                    writeCsvLine(writer, values);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    /**
+     * Ghi chi tiết đơn hàng dạng XLSX (streaming), tự sang sheet mới khi sheet hiện tại đầy
+     */
+    public void exportXlsx(LocalDate fromDate, LocalDate toDate, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerStyle.setFont(headerFont);
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("dd/mm/yyyy hh:mm"));
+            CellStyle moneyStyle = workbook.createCellStyle();
+            moneyStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0"));
+            CellStyle textStyle = workbook.createCellStyle();
+            textStyle.setQuotePrefixed(true);
+
+            Sheet[] sheet = { createSheet(workbook, "Đơn hàng", headerStyle) };
+            int[] rowIndex = { 1 };
+            streamRows(fromDate, toDate, rs -> {
+                if (rowIndex[0] > MAX_DATA_ROWS_PER_SHEET) {
+                    sheet[0] = createSheet(workbook, "Đơn hàng (" + (workbook.getNumberOfSheets() + 1) + ")", headerStyle);
+                    rowIndex[0] = 1;
+                }
+                Row row = sheet[0].createRow(rowIndex[0]++);
+                for (int i = 0; i < HEADERS.length; i++) {
+                    Object value = rs.getObject(i + 1);
+                    if (value == null) {
+                        continue;
+                    }
+                    if (value instanceof Timestamp) {
+                        row.createCell(i).setCellValue(((Timestamp) value).toLocalDateTime());
+                        row.getCell(i).setCellStyle(dateStyle);
+                    } else if (i == QUANTITY_COLUMN) {
+                        row.createCell(i).setCellValue(((Number) value).doubleValue());
+                    } else if (i >= FIRST_MONEY_COLUMN) {
+                        row.createCell(i).setCellValue(((Number) value).doubleValue());
+                        row.getCell(i).setCellStyle(moneyStyle);
+                    } else {
+                        String text = value.toString();
+                        Cell cell = row.createCell(i);
+                        cell.setCellValue(text);
+                        if (looksLikeFormula(text)) {
+                            cell.setCellStyle(textStyle);
+                        }
+                    }
+                }
+            });
+
+            workbook.write(out);
+            out.flush();
+        } finally {
+            // Xóa các file tạm của SXSSF
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static Sheet createSheet(SXSSFWorkbook workbook, String name, CellStyle headerStyle) {
+        Sheet sheet = workbook.createSheet(name);
+        Row header = sheet.createRow(0);
+        for (int i = 0; i < HEADERS.length; i++) {
+            header.createCell(i).setCellValue(HEADERS[i]);
+            header.getCell(i).setCellStyle(headerStyle);
+        }
+        return sheet;
+    }
+
+    private void streamRows(LocalDate fromDate, LocalDate toDate, RowCallbackHandler handler) {
+        LocalDate from = fromDate != null ? fromDate : LocalDate.of(2000, 1, 1);
+        LocalDate to = toDate != null ? toDate : LocalDate.now();
+        exportJdbcTemplate.query(EXPORT_SQL, handler,
+                Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+    }
+
+    static void writeCsvLine(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    /**
+     * Giá trị chữ cho ô CSV: thêm dấu ' nếu Excel có thể hiểu là công thức
+     */
+    static String neutralizeFormula(String value) {
+        return looksLikeFormula(value) ? "'" + value : value;
+    }
+
+    private static boolean looksLikeFormula(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        char first = value.charAt(0);
+        return first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r';
+    }
+
+    private static String escapeCsv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
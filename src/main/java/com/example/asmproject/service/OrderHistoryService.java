@@ -0,0 +1,99 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.dto.OrderHistoryItemResponse;
+import com.example.asmproject.dto.OrderHistoryResponse;
+import com.example.asmproject.repository.OrderItemRepository;
+import com.example.asmproject.repository.OrderRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lịch sử đơn hàng của khách hàng (trang "Đơn hàng của tôi")
+ *
+ * - Phân trang, mỗi trang 2 truy vấn projection: thông tin đơn (kèm người nhận) và
+ *   các dòng sản phẩm của cả trang (IN (...)), không nạp entity Order / OrderItem
+ * - Trang đầu tiên (trang được xem nhiều nhất) được cache theo user, bị xóa khi
+ *   khách hàng đặt đơn mới hoặc đơn hàng đổi trạng thái
+ */
+@Service
+public class OrderHistoryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 10;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    private final Cache<Long, Page<OrderHistoryResponse>> firstPages;
+
+    public OrderHistoryService(@Value("${app.order-history.cache-size:10000}") long cacheSize,
+            @Value("${app.order-history.cache-ttl-minutes:10}") long cacheTtlMinutes) {
+        this.firstPages = CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtlMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * Một trang lịch sử đơn hàng, mới nhất trước
+     */
+    @Transactional(readOnly = true)
+    public Page<OrderHistoryResponse> getOrderHistory(Long userId, int page, int size) {
+        if (page == 0 && size == DEFAULT_PAGE_SIZE) {
+            try {
+                return firstPages.get(userId, () -> load(userId, 0, size));
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        return load(userId, page, size);
+    }
+
+    /**
+     * Xóa trang đầu đã cache của user. Nếu đang trong transaction thì xóa thêm lần nữa sau khi commit,
+     * để request đọc xen giữa không cache lại dữ liệu cũ.
+     */
+    public void evict(Long userId) {
+        firstPages.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    firstPages.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    private Page<OrderHistoryResponse> load(Long userId, int page, int size) {
+        Page<OrderHistoryResponse> orders = orderRepository.findHistoryByUserId(userId, PageRequest.of(page, size));
+        if (orders.isEmpty()) {
+            return orders;
+        }
+
+        Map<Long, OrderHistoryResponse> ordersById = new HashMap<>();
+        for (OrderHistoryResponse order : orders) {
+            ordersById.put(order.getId(), order);
+        }
+        for (OrderHistoryItemResponse item : orderItemRepository.findHistoryItemsByOrderIdIn(new ArrayList<>(ordersById.keySet()))) {
+            ordersById.get(item.getOrderId()).getItems().add(item);
+        }
+        return orders;
+    }
+}
@@ -7,10 +7,12 @@ import com.example.asmproject.model.enums.ShippingStatus;
 import com.example.asmproject.model.enums.ShippingType;
 import com.example.asmproject.repository.*;
 import com.example.asmproject.service.mapper.OrderMapper;
+import com.example.asmproject.util.OrderCodeGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,8 +21,12 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -51,9 +57,36 @@ public class OrderService {
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private ProductService productService;
+
     @Autowired
     private OrderMapper orderMapper;
 
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private OrderCodeGenerator orderCodeGenerator;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private DashboardStatsService dashboardStatsService;
+
+    @Autowired
+    private DailySalesService dailySalesService;
+
+    @Autowired
+    private ProductAnalyticsService productAnalyticsService;
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+
+    @Autowired
+    private VoucherService voucherService;
+
     public Order createOrder(Long userId, Long addressId, String voucherCode,
             String paymentMethod, Order.DeliveryMethod deliveryMethod) {
         User user = userRepository.findById(userId)
@@ -86,8 +119,12 @@ public class OrderService {
                 voucher = voucherOpt.get();
                 discount = voucher.calculateDiscount(subtotal);
                 if (discount.compareTo(BigDecimal.ZERO) > 0) {
-                    voucher.setUsedCount(voucher.getUsedCount() + 1);
-                    voucherRepository.save(voucher);
+                    // Tăng usedCount bằng UPDATE có điều kiện: các đơn đồng thời không ghi đè lẫn nhau
+                    // và không vượt quá quantity (0 dòng = lượt cuối đã bị đơn khác dùng)
+                    if (voucherRepository.redeem(voucher.getId(), LocalDateTime.now()) == 0) {
+                        throw new RuntimeException("Mã giảm giá đã hết lượt sử dụng");
+                    }
+                    voucherService.onVoucherRedeemed(voucher);
                 }
             }
         }
@@ -114,11 +151,13 @@ public class OrderService {
         order.setDeliveryMethod(deliveryMethod);
         order.setPaymentStatus(Order.PaymentStatus.PENDING);
         order.setOrderStatus(Order.OrderStatus.PENDING);
-        order.generateOrderCode();
+        order.setOrderCode(orderCodeGenerator.nextCode());
 
         order = orderRepository.save(order);
 
-        // Create order items and update product quantities
+        // Tạo order items: id lấy từ sequence (pooled) nên các INSERT được gom
+        // thành một JDBC batch khi flush, thay vì save từng dòng
+        List<OrderItem> orderItems = new ArrayList<>(cartItems.size());
         for (Cart cartItem : cartItems) {
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
@@ -131,20 +170,23 @@ public class OrderService {
             orderItem.setQuantity(cartItem.getQuantity());
             orderItem.setSubtotal(cartItem.getProduct().getFinalPrice()
                     .multiply(BigDecimal.valueOf(cartItem.getQuantity())));
-            orderItemRepository.save(orderItem);
-
-            // Update product quantity
-            Product product = cartItem.getProduct();
-            product.setQuantity(product.getQuantity() - cartItem.getQuantity());
-            if (product.getQuantity() <= 0) {
-                product.setStatus(Product.ProductStatus.OUT_OF_STOCK);
-            }
-            productRepository.save(product);
+            orderItems.add(orderItem);
         }
+        order.getOrderItems().addAll(orderItemRepository.saveAll(orderItems));
+
+        // Trừ tồn kho theo màu + tổng sản phẩm (một batch UPDATE có điều kiện, rollback nếu hết hàng)
+        inventoryService.decreaseStock(orderItems);
 
-        // Clear cart
+        // Clear cart - câu DELETE này kích hoạt flush, batch INSERT order_items chạy cùng lúc
         cartRepository.deleteByUserId(userId);
 
+        dailySalesService.recordOrderCreated(order);
+        productAnalyticsService.recordOrderCreated(order);
+        orderHistoryService.evict(order.getUser().getId());
+
+        // Email, thống kê... chạy nền sau khi commit (outbox)
+        outboxService.recordOrderPlaced(order);
+
         return order;
     }
 
@@ -186,18 +228,25 @@ public class OrderService {
      * Sử dụng cho các API hiển thị chi tiết đơn hàng.
      */
     public Optional<OrderResponse> getOrderResponseById(Long id) {
-        return orderRepository.findById(id).map(orderMapper::toResponse);
+        return orderRepository.findDetailById(id).map(orderMapper::toResponse);
     }
 
     public Optional<Order> getOrderByCode(String orderCode) {
         return orderRepository.findByOrderCode(orderCode);
     }
 
+    /**
+     * Tìm kiếm đơn hàng (trang quản lý đơn hàng admin), chỉ ghép các điều kiện được truyền vào
+     */
     public Page<Order> searchOrders(String keyword, Order.OrderStatus orderStatus,
             Order.PaymentStatus paymentStatus,
             Order.DeliveryMethod deliveryMethod,
             Pageable pageable) {
-        return orderRepository.searchOrders(keyword, orderStatus, paymentStatus, deliveryMethod, pageable);
+        Specification<Order> spec = Specification.where(OrderSpecifications.keyword(keyword))
+                .and(OrderSpecifications.orderStatus(orderStatus))
+                .and(OrderSpecifications.paymentStatus(paymentStatus))
+                .and(OrderSpecifications.deliveryMethod(deliveryMethod));
+        return orderRepository.findAll(spec, withDefaultSort(pageable));
     }
 
     public OrderResponse updateOrderStatus(Long orderId, Order.OrderStatus newStatus) {
@@ -209,6 +258,7 @@ public class OrderService {
                     " sang " + newStatus.getDisplayName());
         }
 
+        Order.OrderStatus oldStatus = order.getOrderStatus();
         order.setOrderStatus(newStatus);
 
         // Tự động cập nhật trạng thái thanh toán thành PAID khi đơn hàng được giao
@@ -217,9 +267,38 @@ public class OrderService {
         }
 
         order = orderRepository.save(order);
+        dailySalesService.recordStatusChange(order, oldStatus);
+        productAnalyticsService.recordStatusChange(order, oldStatus);
+        orderHistoryService.evict(order.getUser().getId());
+        dashboardStatsService.invalidate();
         return orderMapper.toResponse(order);
     }
 
+    /**
+     * Nạp order_items cho cả trang đơn hàng bằng một truy vấn IN (...) thay vì một truy vấn mỗi đơn.
+     * Các đơn đã nằm trong persistence context nên collection của chính các entity này được khởi tạo.
+     */
+    private void fetchOrderItems(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            ids.add(order.getId());
+        }
+        orderRepository.findWithItemsByIdIn(ids);
+    }
+
+    /**
+     * Danh sách đơn hàng mặc định sắp xếp mới nhất trước (khớp thứ tự của các index theo created_at)
+     */
+    private static Pageable withDefaultSort(Pageable pageable) {
+        if (pageable.getSort().isSorted()) {
+            return pageable;
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("createdAt").descending());
+    }
+
     private boolean isValidTransition(Order.OrderStatus currentStatus, Order.OrderStatus newStatus) {
         // Nếu trạng thái không đổi thì hợp lệ
         if (currentStatus == newStatus) {
@@ -263,11 +342,19 @@ public class OrderService {
     public OrderResponse updatePaymentStatus(Long orderId, Order.PaymentStatus status) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Đơn hàng không tồn tại"));
+        Order.OrderStatus oldStatus = order.getOrderStatus();
         order.setPaymentStatus(status);
         if (status == Order.PaymentStatus.PAID) {
             order.setOrderStatus(Order.OrderStatus.CONFIRMED);
         }
         order = orderRepository.save(order);
+        if (order.getOrderStatus() != oldStatus) {
+            // Thanh toán xong tự xác nhận đơn: cập nhật bảng tổng hợp như updateOrderStatus
+            dailySalesService.recordStatusChange(order, oldStatus);
+            productAnalyticsService.recordStatusChange(order, oldStatus);
+            dashboardStatsService.invalidate();
+        }
+        orderHistoryService.evict(order.getUser().getId());
         return orderMapper.toResponse(order);
     }
 
@@ -328,10 +415,8 @@ public class OrderService {
     }
 
     public long countOrdersByStatus(Order.OrderStatus status) {
-        if (status == null) {
-            return orderRepository.count();
-        }
-        return orderRepository.countByOrderStatus(status);
+        // Dùng chung bộ đếm GROUP BY (có cache) với dashboard
+        return dashboardStatsService.countOrders(status);
     }
 
     public BigDecimal getTotalRevenue(LocalDateTime startDate) {
@@ -348,47 +433,24 @@ public class OrderService {
             LocalDate fromDate,
             LocalDate toDate,
             PageRequest pageable) {
-        Specification<Order> spec = Specification.where(null);
-
-        if (keyword != null && !keyword.trim().isEmpty()) {
-            String keywordLower = keyword.toLowerCase();
-            spec = spec.and((root, query, cb) -> cb.or(
-                    cb.like(cb.lower(root.get("orderCode")), "%" + keywordLower + "%"),
-                    cb.like(cb.lower(root.join("user").get("email")), "%" + keywordLower + "%")));
-        }
-
+        Order.DeliveryMethod deliveryMethod = null;
         if (shippingType != null) {
-            Order.DeliveryMethod deliveryMethod = shippingType == ShippingType.GIAO_NHANH
+            deliveryMethod = shippingType == ShippingType.GIAO_NHANH
                     ? Order.DeliveryMethod.FAST
                     : Order.DeliveryMethod.STANDARD;
-            spec = spec.and((root, query, cb) -> cb.equal(root.get("deliveryMethod"), deliveryMethod));
         }
-
-        if (paymentStatus != null) {
-            Order.PaymentStatus orderPaymentStatus = convertPaymentStatus(paymentStatus);
-            if (orderPaymentStatus != null) {
-                spec = spec.and((root, query, cb) -> cb.equal(root.get("paymentStatus"), orderPaymentStatus));
-            }
-        }
-
-        if (shippingStatus != null) {
-            Order.OrderStatus orderStatus = convertShippingStatus(shippingStatus);
-            if (orderStatus != null) {
-                spec = spec.and((root, query, cb) -> cb.equal(root.get("orderStatus"), orderStatus));
-            }
-        }
-
-        if (fromDate != null) {
-            LocalDateTime fromDateTime = fromDate.atStartOfDay();
-            spec = spec.and((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("createdAt"), fromDateTime));
-        }
-
-        if (toDate != null) {
-            LocalDateTime toDateTime = toDate.atTime(23, 59, 59);
-            spec = spec.and((root, query, cb) -> cb.lessThanOrEqualTo(root.get("createdAt"), toDateTime));
-        }
-
-        Page<Order> orders = orderRepository.findAll(spec, pageable);
+        Order.PaymentStatus orderPaymentStatus = paymentStatus != null ? convertPaymentStatus(paymentStatus) : null;
+        Order.OrderStatus orderStatus = shippingStatus != null ? convertShippingStatus(shippingStatus) : null;
+
+        Specification<Order> spec = Specification.where(OrderSpecifications.keyword(keyword))
+                .and(OrderSpecifications.deliveryMethod(deliveryMethod))
+                .and(OrderSpecifications.paymentStatus(orderPaymentStatus))
+                .and(OrderSpecifications.orderStatus(orderStatus))
+                .and(OrderSpecifications.createdFrom(fromDate))
+                .and(OrderSpecifications.createdTo(toDate));
+
+        Page<Order> orders = orderRepository.findAll(spec, withDefaultSort(pageable));
+        fetchOrderItems(orders.getContent());
         return orders.map(orderMapper::toResponse);
     }
 
@@ -433,45 +495,99 @@ public class OrderService {
         order.setPaymentStatus(convertPaymentStatus(request.getPaymentStatus()));
         order.setOrderStatus(Order.OrderStatus.PENDING);
         order.setNotes(request.getNote());
-        order.generateOrderCode();
+        order.setOrderCode(orderCodeGenerator.nextCode());
 
         order = orderRepository.save(order);
 
-        // Create order items
-        for (OrderItemRequest itemRequest : request.getItems()) {
-            // Find product by name (note: this assumes unique product names, which may not
-            // be ideal)
-            List<Product> products = productRepository.findAll().stream()
-                    .filter(p -> p.getName().equals(itemRequest.getProductName()))
-                    .collect(Collectors.toList());
-
-            Product product = products.isEmpty()
-                    ? null
-                    : products.get(0);
+        // Create order items - sản phẩm của mọi dòng được nạp trong một truy vấn
+        List<Product> products = resolveProducts(request.getItems());
+        List<OrderItem> orderItems = new ArrayList<>(request.getItems().size());
+        for (int i = 0; i < request.getItems().size(); i++) {
+            OrderItemRequest itemRequest = request.getItems().get(i);
+            Product product = products.get(i);
 
             OrderItem orderItem = new OrderItem();
             orderItem.setOrder(order);
-            if (product != null) {
-                orderItem.setProduct(product);
-                orderItem.setProductImage(product.getImage());
-                // Update product quantity
-                product.setQuantity(product.getQuantity() - itemRequest.getQuantity());
-                if (product.getQuantity() <= 0) {
-                    product.setStatus(Product.ProductStatus.OUT_OF_STOCK);
-                }
-                productRepository.save(product);
-            }
+            orderItem.setProduct(product);
+            orderItem.setProductImage(product.getImage());
             orderItem.setProductName(itemRequest.getProductName());
             orderItem.setPrice(itemRequest.getUnitPrice());
             orderItem.setQuantity(itemRequest.getQuantity());
             orderItem.setSubtotal(itemRequest.getUnitPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity())));
-
-            orderItemRepository.save(orderItem);
+            orderItems.add(orderItem);
         }
+        order.getOrderItems().addAll(orderItemRepository.saveAll(orderItems));
+
+        // Trừ tổng tồn kho (đơn tạo từ API không chọn màu) trong một batch
+        inventoryService.decreaseStock(orderItems);
+
+        dailySalesService.recordOrderCreated(order);
+        productAnalyticsService.recordOrderCreated(order);
+        orderHistoryService.evict(order.getUser().getId());
+        outboxService.recordOrderPlaced(order);
 
         return orderMapper.toResponse(order);
     }
 
+    /**
+     * Xác định sản phẩm cho từng dòng của OrderRequest (cùng thứ tự với danh sách dòng)
+     * - Dòng có productId: dùng trực tiếp id
+     * - Dòng chỉ có tên: tra tên -> id qua cache của ProductService (một câu WHERE name IN nếu chưa có)
+     * Sau đó nạp toàn bộ sản phẩm bằng một findAllById.
+     *
+     * @throws RuntimeException nếu có dòng không tìm thấy sản phẩm
+     */
+    private List<Product> resolveProducts(List<OrderItemRequest> items) {
+        Set<String> names = new HashSet<>();
+        Set<Long> ids = new HashSet<>();
+        for (OrderItemRequest item : items) {
+            if (item.getProductId() != null) {
+                ids.add(item.getProductId());
+            } else {
+                names.add(item.getProductName());
+            }
+        }
+
+        Map<String, Long> idsByName = new HashMap<>();
+        if (!names.isEmpty()) {
+            idsByName.putAll(productService.findProductIdsByNames(names));
+            ids.addAll(idsByName.values());
+        }
+        Map<Long, Product> productsById = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            productsById.put(product.getId(), product);
+        }
+
+        // Id trong cache không còn khớp tên (sản phẩm bị đổi tên/xóa): tra lại theo tên
+        List<String> staleNames = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : idsByName.entrySet()) {
+            Product product = productsById.get(entry.getValue());
+            if (product == null || !entry.getKey().equals(product.getName())) {
+                staleNames.add(entry.getKey());
+            }
+        }
+        if (!staleNames.isEmpty()) {
+            productService.evictProductNames(staleNames);
+            staleNames.forEach(idsByName::remove);
+            Map<String, Long> fresh = productService.findProductIdsByNames(staleNames);
+            idsByName.putAll(fresh);
+            for (Product product : productRepository.findAllById(fresh.values())) {
+                productsById.put(product.getId(), product);
+            }
+        }
+
+        List<Product> result = new ArrayList<>(items.size());
+        for (OrderItemRequest item : items) {
+            Long id = item.getProductId() != null ? item.getProductId() : idsByName.get(item.getProductName());
+            Product product = id != null ? productsById.get(id) : null;
+            if (product == null) {
+                throw new RuntimeException("Sản phẩm không tồn tại: " + item.getProductName());
+            }
+            result.add(product);
+        }
+        return result;
+    }
+
     /**
      * Lấy trạng thái giao hàng
      */
@@ -494,31 +610,8 @@ public class OrderService {
      * Xây dựng báo cáo đơn hàng
      */
     public OrderReportResponse buildReport(LocalDate fromDate, LocalDate toDate) {
-        LocalDateTime fromDateTime = fromDate != null ? fromDate.atStartOfDay() : LocalDateTime.of(2000, 1, 1, 0, 0);
-        LocalDateTime toDateTime = toDate != null ? toDate.atTime(23, 59, 59) : LocalDateTime.now();
-
-        Specification<Order> spec = (root, query, cb) -> cb.between(root.get("createdAt"), fromDateTime, toDateTime);
-        List<Order> orders = orderRepository.findAll(spec);
-
-        OrderReportResponse report = new OrderReportResponse();
-        report.setFromDate(fromDate);
-        report.setToDate(toDate);
-        report.setTotalOrders(orders.size());
-
-        BigDecimal totalRevenue = orders.stream()
-                .filter(o -> o.getOrderStatus() == Order.OrderStatus.DELIVERED)
-                .map(Order::getTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        report.setTotalRevenue(totalRevenue);
-
-        long fastShipping = orders.stream()
-                .filter(o -> o.getDeliveryMethod() == Order.DeliveryMethod.FAST)
-                .count();
-        report.setFastShippingOrders(fastShipping);
-
-        report.setStandardShippingOrders(orders.size() - fastShipping);
-
-        return report;
+        // Đọc từ bảng tổng hợp daily_sales thay vì nạp toàn bộ đơn hàng trong khoảng ngày
+        return dailySalesService.buildReport(fromDate, toDate);
     }
 
     /**
@@ -0,0 +1,216 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.model.Order;
+import com.example.asmproject.model.OutboxEvent;
+import com.example.asmproject.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ClassUtils;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transactional outbox cho các tác vụ sau khi đặt hàng
+ *
+ * - recordOrderPlaced() ghi sự kiện ORDER_PLACED vào bảng outbox_events trong cùng
+ *   transaction với đơn hàng: đơn hàng commit thì sự kiện cũng commit.
+ * - Sau khi commit, sự kiện được đẩy ngay sang thread pool nền (giới hạn số luồng và
+ *   hàng đợi), request checkout không phải chờ gửi email hay cập nhật thống kê.
+ * - Một job định kỳ quét các sự kiện còn PENDING (hàng đợi đầy, lỗi cần thử lại,
+ *   ứng dụng tắt giữa chừng) nên không sự kiện nào bị mất.
+ * - Mỗi sự kiện được "giữ chỗ" bằng UPDATE có điều kiện, chạy nhiều instance vẫn
+ *   chỉ một worker xử lý một sự kiện.
+ * - Listener nào xử lý xong được ghi ngay vào completed_listeners của sự kiện: khi một listener
+ *   khác lỗi và sự kiện được thử lại, các listener đã xong (ví dụ gửi email xác nhận) không chạy lại.
+ */
+@Service
+public class OutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private List<OrderEventListener> orderEventListeners;
+
+    @Value("${app.outbox.retention-days:7}")
+    private int retentionDays;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long lockTimeoutMinutes;
+    private final ThreadPoolExecutor executor;
+
+    public OutboxService(@Value("${app.outbox.workers:4}") int workers,
+            @Value("${app.outbox.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.outbox.batch-size:100}") int batchSize,
+            @Value("${app.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${app.outbox.lock-timeout-minutes:5}") long lockTimeoutMinutes) {
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.lockTimeoutMinutes = lockTimeoutMinutes;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "outbox-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Ghi sự kiện đơn hàng mới (bắt buộc gọi trong transaction tạo đơn hàng)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOrderPlaced(Order order) {
+        String payload = "{\"orderCode\":\"" + order.getOrderCode() + "\"}";
+        OutboxEvent event = outboxEventRepository.save(
+                new OutboxEvent(OutboxEvent.EventType.ORDER_PLACED, order.getId(), payload));
+        Long eventId = event.getId();
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(eventId);
+            }
+        });
+    }
+
+    /**
+     * Quét các sự kiện đến hạn xử lý (bù cho các sự kiện chưa được đẩy đi ngay)
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:5000}")
+    public void pollPendingEvents() {
+        LocalDateTime now = LocalDateTime.now();
+        outboxEventRepository.releaseStale(OutboxEvent.Status.PENDING, OutboxEvent.Status.PROCESSING,
+                now.minusMinutes(lockTimeoutMinutes));
+
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        List<Long> ids = outboxEventRepository.findDueIds(OutboxEvent.Status.PENDING, now,
+                PageRequest.of(0, Math.min(batchSize, capacity)));
+        for (Long id : ids) {
+            if (!submit(id)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Xóa các sự kiện đã xử lý xong quá app.outbox.retention-days ngày (3h sáng mỗi ngày)
+     */
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 0 3 * * *}")
+    public void cleanupProcessedEvents() {
+        outboxEventRepository.deleteProcessedBefore(OutboxEvent.Status.DONE, LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Sự kiện chưa xử lý vẫn ở PENDING/PROCESSING trong database và sẽ được xử lý lại khi khởi động
+        executor.shutdown();
+    }
+
+    private boolean submit(Long eventId) {
+        try {
+            executor.execute(() -> claimAndProcess(eventId));
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Hàng đợi đầy: sự kiện vẫn PENDING, job định kỳ sẽ lấy lại
+            return false;
+        }
+    }
+
+    private void claimAndProcess(Long eventId) {
+        try {
+            if (outboxEventRepository.claim(eventId, OutboxEvent.Status.PENDING,
+                    OutboxEvent.Status.PROCESSING, LocalDateTime.now()) == 1) {
+                process(eventId);
+            }
+        } catch (Exception e) {
+            log.error("Lỗi khi xử lý outbox event {}", eventId, e);
+        }
+    }
+
+    private void process(Long eventId) {
+        OutboxEvent event = outboxEventRepository.findById(eventId).orElse(null);
+        if (event == null) {
+            return;
+        }
+        try {
+            dispatch(event);
+            event.setStatus(OutboxEvent.Status.DONE);
+            event.setProcessedAt(LocalDateTime.now());
+            event.setLastError(null);
+        } catch (Exception e) {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setLastError(truncate(e.getClass().getSimpleName() + ": " + e.getMessage()));
+            if (attempts >= maxAttempts) {
+                event.setStatus(OutboxEvent.Status.FAILED);
+                log.error("Outbox event {} thất bại sau {} lần", eventId, attempts, e);
+            } else {
+                // Thử lại với thời gian chờ tăng dần: 2, 4, 8... giây (tối đa 1 giờ)
+                long delaySeconds = Math.min(1L << attempts, 3600);
+                event.setStatus(OutboxEvent.Status.PENDING);
+                event.setNextAttemptAt(LocalDateTime.now().plusSeconds(delaySeconds));
+                log.warn("Outbox event {} lỗi lần {}, thử lại sau {} giây: {}", eventId, attempts, delaySeconds,
+                        e.getMessage());
+            }
+        }
+        event.setLockedAt(null);
+        outboxEventRepository.save(event);
+    }
+
+    private void dispatch(OutboxEvent event) {
+        switch (event.getEventType()) {
+            case ORDER_PLACED:
+                Set<String> completed = new LinkedHashSet<>();
+                if (event.getCompletedListeners() != null && !event.getCompletedListeners().isEmpty()) {
+                    completed.addAll(Arrays.asList(event.getCompletedListeners().split(",")));
+                }
+                for (OrderEventListener listener : orderEventListeners) {
+                    String name = ClassUtils.getUserClass(listener).getSimpleName();
+                    if (completed.contains(name)) {
+                        continue;
+                    }
+                    listener.onOrderPlaced(event.getAggregateId());
+                    // Ghi ngay: listener sau lỗi (hoặc ứng dụng tắt) cũng không chạy lại listener này
+                    completed.add(name);
+                    event.setCompletedListeners(String.join(",", completed));
+                    outboxEventRepository.save(event);
+                }
+                break;
+            default:
+                throw new IllegalStateException("Loại sự kiện không được hỗ trợ: " + event.getEventType());
+        }
+    }
+
+    private static String truncate(String message) {
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+}
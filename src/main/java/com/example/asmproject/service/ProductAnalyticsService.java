@@ -0,0 +1,261 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.dto.ProductSalesResponse;
+import com.example.asmproject.model.Color;
+import com.example.asmproject.model.Order;
+import com.example.asmproject.model.OrderItem;
+import com.example.asmproject.model.Product;
+import com.example.asmproject.model.ProductDailySales;
+import com.example.asmproject.repository.ColorRepository;
+import com.example.asmproject.repository.ProductDailySalesRepository;
+import com.example.asmproject.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service duy trì bảng tổng hợp product_daily_sales và phục vụ thống kê sản phẩm cho admin
+ *
+ * - Tạo đơn hàng: cộng số lượng / doanh thu của từng (sản phẩm, màu) vào ngày đặt hàng
+ * - Đơn bị hủy / trả hàng: trừ lại (và cộng lại nếu trạng thái được chuyển ngược)
+ * - Các câu UPDATE của một đơn được gửi trong một JDBC batch, cùng transaction với đơn hàng
+ * - Job đối soát hằng đêm tính lại các ngày gần đây trực tiếp từ order_items
+ */
+@Service
+@Transactional
+public class ProductAnalyticsService {
+
+    private static final String VALID_ORDER_FILTER = "o.order_status NOT IN ('CANCELLED', 'RETURNED')";
+
+    private static final String INCREMENT_SQL =
+            "UPDATE product_daily_sales SET quantity = quantity + ?, revenue = revenue + ?, " +
+            "order_count = order_count + ?, updated_at = ? " +
+            "WHERE sales_date = ? AND product_id = ? AND color_id = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO product_daily_sales (sales_date, product_id, color_id, quantity, revenue, " +
+            "order_count, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_RANGE_SQL =
+            "DELETE FROM product_daily_sales WHERE sales_date >= ? AND sales_date <= ?";
+
+    private static final String REBUILD_RANGE_SQL =
+            "INSERT INTO product_daily_sales (sales_date, product_id, color_id, quantity, revenue, " +
+            "order_count, updated_at) " +
+            "SELECT CAST(o.created_at AS DATE), oi.product_id, COALESCE(oi.color_id, 0), SUM(oi.quantity), " +
+            "SUM(oi.subtotal), COUNT(DISTINCT o.id), ? " +
+            "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? AND " + VALID_ORDER_FILTER + " " +
+            "GROUP BY CAST(o.created_at AS DATE), oi.product_id, COALESCE(oi.color_id, 0)";
+
+    // Số đơn / số khách hàng khác nhau không cộng dồn được qua các ngày nên tính trực tiếp (chỉ cho top N sản phẩm)
+    private static final String DISTINCT_COUNT_SQL =
+            "SELECT oi.product_id, COUNT(DISTINCT o.id), COUNT(DISTINCT o.user_id) " +
+            "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? AND " + VALID_ORDER_FILTER + " " +
+            "AND oi.product_id IN (%s) GROUP BY oi.product_id";
+
+    @Autowired
+    private ProductDailySalesRepository productDailySalesRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ColorRepository colorRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.product-sales.reconcile-days:35}")
+    private int reconcileDays;
+
+    /**
+     * Ghi nhận các dòng sản phẩm của đơn hàng mới
+     */
+    public void recordOrderCreated(Order order) {
+        if (isCounted(order.getOrderStatus())) {
+            apply(order, 1);
+        }
+    }
+
+    /**
+     * Trừ / cộng lại doanh số khi đơn chuyển sang hoặc ra khỏi trạng thái hủy / trả hàng
+     */
+    public void recordStatusChange(Order order, Order.OrderStatus oldStatus) {
+        boolean wasCounted = isCounted(oldStatus);
+        boolean counted = isCounted(order.getOrderStatus());
+        if (wasCounted != counted) {
+            apply(order, counted ? 1 : -1);
+        }
+    }
+
+    /**
+     * Tính lại bảng tổng hợp cho khoảng ngày [from, to] từ order_items (set-based, một transaction)
+     */
+    public void rebuild(LocalDate from, LocalDate to) {
+        jdbcTemplate.update(DELETE_RANGE_SQL, Date.valueOf(from), Date.valueOf(to));
+        jdbcTemplate.update(REBUILD_RANGE_SQL, Timestamp.valueOf(LocalDateTime.now()),
+                Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * Đối soát hằng đêm: tính lại app.product-sales.reconcile-days ngày gần nhất
+     */
+    @Scheduled(cron = "${app.product-sales.reconcile-cron:0 40 2 * * *}")
+    public void reconcileRecentDays() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(reconcileDays), today);
+    }
+
+    /**
+     * Top sản phẩm theo số lượng bán trong khoảng [from, to], kèm số đơn và số khách hàng khác nhau đã mua
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSalesResponse> getTopProducts(LocalDate from, LocalDate to, int limit) {
+        List<Object[]> rows = productDailySalesRepository.findTopProducts(from, to, PageRequest.of(0, limit));
+        if (rows.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> productIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            productIds.add((Long) row[0]);
+        }
+        Map<Long, String> productNames = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            productNames.put(product.getId(), product.getName());
+        }
+        Map<Long, long[]> distinctCounts = countOrdersAndBuyers(productIds, from, to);
+
+        List<ProductSalesResponse> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long productId = (Long) row[0];
+            ProductSalesResponse response = toResponse(row);
+            response.setProductId(productId);
+            response.setProductName(productNames.get(productId));
+            long[] counts = distinctCounts.getOrDefault(productId, new long[2]);
+            response.setOrderCount(counts[0]);
+            response.setBuyerCount(counts[1]);
+            result.add(response);
+        }
+        return result;
+    }
+
+    /**
+     * Doanh số theo từng màu của một sản phẩm trong khoảng [from, to]
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSalesResponse> getColorSales(Long productId, LocalDate from, LocalDate to) {
+        List<Object[]> rows = productDailySalesRepository.sumByColor(productId, from, to);
+        List<Long> colorIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            colorIds.add((Long) row[0]);
+        }
+        Map<Long, String> colorNames = new HashMap<>();
+        for (Color color : colorRepository.findAllById(colorIds)) {
+            colorNames.put(color.getId(), color.getName());
+        }
+        String productName = productRepository.findById(productId).map(Product::getName).orElse(null);
+
+        List<ProductSalesResponse> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long colorId = (Long) row[0];
+            ProductSalesResponse response = toResponse(row);
+            response.setProductId(productId);
+            response.setProductName(productName);
+            if (colorId != ProductDailySales.NO_COLOR) {
+                response.setColorId(colorId);
+                response.setColorName(colorNames.get(colorId));
+            } else {
+                response.setColorName("Không chọn màu");
+            }
+            result.add(response);
+        }
+        return result;
+    }
+
+    private Map<Long, long[]> countOrdersAndBuyers(List<Long> productIds, LocalDate from, LocalDate to) {
+        String sql = String.format(DISTINCT_COUNT_SQL, String.join(",", Collections.nCopies(productIds.size(), "?")));
+        List<Object> params = new ArrayList<>(productIds.size() + 2);
+        params.add(Timestamp.valueOf(from.atStartOfDay()));
+        params.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        params.addAll(productIds);
+
+        Map<Long, long[]> result = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            result.put(rs.getLong(1), new long[] { rs.getLong(2), rs.getLong(3) });
+        }, params.toArray());
+        return result;
+    }
+
+    private static ProductSalesResponse toResponse(Object[] row) {
+        ProductSalesResponse response = new ProductSalesResponse();
+        response.setQuantity(((Number) row[1]).longValue());
+        response.setRevenue((BigDecimal) row[2]);
+        response.setOrderCount(((Number) row[3]).longValue());
+        return response;
+    }
+
+    private void apply(Order order, int sign) {
+        LocalDate salesDate = order.getCreatedAt() != null ? order.getCreatedAt().toLocalDate() : LocalDate.now();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        BigDecimal multiplier = BigDecimal.valueOf(sign);
+
+        // Gộp các dòng cùng (sản phẩm, màu) của đơn: [productId, colorId, quantity, revenue]
+        Map<String, Object[]> groups = new LinkedHashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            Long productId = item.getProduct().getId();
+            Long colorId = item.getColor() != null ? item.getColor().getId() : ProductDailySales.NO_COLOR;
+            Object[] group = groups.computeIfAbsent(productId + ":" + colorId,
+                    key -> new Object[] { productId, colorId, 0L, BigDecimal.ZERO });
+            group[2] = (Long) group[2] + item.getQuantity();
+            group[3] = ((BigDecimal) group[3]).add(item.getSubtotal());
+        }
+        if (groups.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> increments = new ArrayList<>(groups.size());
+        for (Object[] group : groups.values()) {
+            increments.add(new Object[] {
+                    (Long) group[2] * sign, ((BigDecimal) group[3]).multiply(multiplier), sign, now,
+                    Date.valueOf(salesDate), group[0], group[1] });
+        }
+        int[] updated = jdbcTemplate.batchUpdate(INCREMENT_SQL, increments);
+
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] != 0) {
+                continue;
+            }
+            Object[] params = increments.get(i);
+            try {
+                jdbcTemplate.update(INSERT_SQL, params[4], params[5], params[6], params[0], params[1], params[2], now);
+            } catch (DuplicateKeyException e) {
+                // Transaction khác vừa tạo nhóm này: cộng dồn vào dòng đã có
+                jdbcTemplate.update(INCREMENT_SQL, params);
+            }
+        }
+    }
+
+    private static boolean isCounted(Order.OrderStatus status) {
+        return status != Order.OrderStatus.CANCELLED && status != Order.OrderStatus.RETURNED;
+    }
+}
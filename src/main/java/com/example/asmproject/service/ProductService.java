@@ -7,14 +7,21 @@ import com.example.asmproject.model.Product;
 import com.example.asmproject.repository.BrandRepository;
 import com.example.asmproject.repository.CategoryRepository;
 import com.example.asmproject.repository.ProductRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Service xử lý các logic nghiệp vụ liên quan đến sản phẩm
@@ -35,6 +42,14 @@ public class ProductService {
 
     @Autowired
     private CategoryRepository categoryRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    // Cache tên sản phẩm -> id cho API tạo đơn hàng theo tên, xóa khi có thay đổi sản phẩm
+    private final Cache<String, Long> productIdsByName = CacheBuilder.newBuilder()
+            .maximumSize(10_000)
+            .build();
     
     /**
      * Tìm kiếm sản phẩm với nhiều tiêu chí
@@ -157,6 +172,7 @@ public class ProductService {
         }
         
         Product saved = productRepository.save(product);
+        productIdsByName.invalidateAll();
         return toProductResponse(saved);
     }
 
@@ -166,9 +182,16 @@ public class ProductService {
     public ProductResponse updateProduct(Long id, ProductRequest request) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại"));
+        Integer currentQuantity = product.getQuantity();
         
         mapRequestToProduct(request, product);
         
+        // Sản phẩm có tồn kho theo màu: tổng số lượng được suy ra từ product_colors,
+        // không cho form ghi đè (chỉnh qua API tồn kho theo màu)
+        if (inventoryService.isColorManaged(id)) {
+            product.setQuantity(currentQuantity);
+        }
+        
         // Check unique slug if changed
         if (request.getSlug() != null && !request.getSlug().equals(product.getSlug())) {
             if (productRepository.findBySlug(request.getSlug()).isPresent()) {
@@ -177,6 +200,7 @@ public class ProductService {
         }
         
         Product saved = productRepository.save(product);
+        productIdsByName.invalidateAll();
         return toProductResponse(saved);
     }
 
@@ -255,7 +279,9 @@ public class ProductService {
      * @return Product object đã được lưu vào database
      */
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        productIdsByName.invalidateAll();
+        return saved;
     }
     
     /**
@@ -265,6 +291,46 @@ public class ProductService {
      */
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        productIdsByName.invalidateAll();
+    }
+
+    /**
+     * Tra cứu id sản phẩm theo tên cho nhiều tên cùng lúc
+     * Tên đã có trong cache không cần truy vấn; các tên còn lại được tra trong
+     * một câu WHERE name IN (...) duy nhất.
+     *
+     * @param names Danh sách tên sản phẩm
+     * @return Map tên -> id (tên không tồn tại sẽ không có trong map)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> findProductIdsByNames(Collection<String> names) {
+        Map<String, Long> result = new HashMap<>();
+        Set<String> missing = new LinkedHashSet<>();
+        for (String name : names) {
+            Long id = productIdsByName.getIfPresent(name);
+            if (id != null) {
+                result.put(name, id);
+            } else {
+                missing.add(name);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Object[] row : productRepository.findIdAndNameByNameIn(missing)) {
+                Long id = (Long) row[0];
+                String name = (String) row[1];
+                if (result.putIfAbsent(name, id) == null) {
+                    productIdsByName.put(name, id);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Bỏ các tên khỏi cache (ví dụ khi id trong cache không còn khớp tên sản phẩm)
+     */
+    public void evictProductNames(Collection<String> names) {
+        productIdsByName.invalidateAll(names);
     }
     
     /**
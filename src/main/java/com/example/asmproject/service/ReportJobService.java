@@ -0,0 +1,409 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.dto.ReportJobResponse;
+import com.example.asmproject.model.enums.ReportType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service chạy báo cáo nặng (khoảng thời gian dài) ở chế độ nền
+ *
+ * - Admin gửi yêu cầu báo cáo và nhận lại job id ngay, request không bị giữ
+ * - Job chạy trên thread pool riêng (giới hạn số luồng + hàng đợi), tách khỏi luồng web
+ * - Khoảng ngày được chia theo từng tháng, mỗi tháng là một truy vấn GROUP BY ngắn,
+ *   kết quả được cộng dồn trong bộ nhớ (vài trăm dòng) và cập nhật tiến độ sau mỗi tháng
+ * - Kết quả ghi ra file CSV trên ổ đĩa (app.report.dir), tải về qua API và tự xóa sau
+ *   app.report.ttl-hours giờ. Job chỉ nằm trong bộ nhớ nên khi khởi động, file kết quả còn sót
+ *   của lần chạy trước (không còn job nào trỏ tới) được xóa
+ *
+ * Doanh thu theo sản phẩm / tỉnh thành / voucher tính trên các đơn không bị hủy hoặc trả hàng.
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReportJobService.class);
+
+    // File kết quả / file tạm của job: <job id (UUID)>.csv hoặc <job id>.csv.tmp
+    private static final String RESULT_FILE_GLOB = "????????-????-????-????-????????????.{csv,csv.tmp}";
+
+    private static final String VALID_ORDER_FILTER = "o.order_status NOT IN ('CANCELLED', 'RETURNED')";
+
+    private static final Map<ReportType, ReportDefinition> DEFINITIONS = new EnumMap<>(ReportType.class);
+
+    static {
+        DEFINITIONS.put(ReportType.SUMMARY, new ReportDefinition(
+                new String[] { "Ngày", "Tổng đơn", "Đơn đã giao", "Doanh thu (đã giao)", "Đơn hủy/trả",
+                        "Giảm giá", "Phí vận chuyển" },
+                "SELECT sales_date, SUM(order_count), " +
+                "SUM(CASE WHEN order_status = 'DELIVERED' THEN order_count ELSE 0 END), " +
+                "SUM(CASE WHEN order_status = 'DELIVERED' THEN revenue ELSE 0 END), " +
+                "SUM(CASE WHEN order_status IN ('CANCELLED', 'RETURNED') THEN order_count ELSE 0 END), " +
+                "SUM(discount), SUM(shipping_fee) " +
+                "FROM daily_sales WHERE sales_date >= ? AND sales_date < ? " +
+                "GROUP BY sales_date ORDER BY sales_date",
+                true, 1, -1));
+        DEFINITIONS.put(ReportType.BY_PRODUCT, new ReportDefinition(
+                new String[] { "Mã sản phẩm", "Tên sản phẩm", "Số đơn", "Số lượng bán", "Doanh thu" },
+                "SELECT oi.product_id, MAX(oi.product_name), COUNT(DISTINCT o.id), SUM(oi.quantity), SUM(oi.subtotal) " +
+                "FROM order_items oi JOIN orders o ON o.id = oi.order_id " +
+                "WHERE o.created_at >= ? AND o.created_at < ? AND " + VALID_ORDER_FILTER + " " +
+                "GROUP BY oi.product_id",
+                false, 2, 4));
+        DEFINITIONS.put(ReportType.BY_PROVINCE, new ReportDefinition(
+                new String[] { "Tỉnh/Thành phố", "Số đơn", "Doanh thu" },
+                "SELECT COALESCE(a.province, N'Không rõ'), COUNT(*), SUM(o.total) " +
+                "FROM orders o LEFT JOIN addresses a ON a.id = o.address_id " +
+                "WHERE o.created_at >= ? AND o.created_at < ? AND " + VALID_ORDER_FILTER + " " +
+                "GROUP BY COALESCE(a.province, N'Không rõ')",
+                false, 1, 2));
+        DEFINITIONS.put(ReportType.BY_VOUCHER, new ReportDefinition(
+                new String[] { "Mã voucher", "Số đơn", "Tổng giảm giá", "Doanh thu" },
+                "SELECT v.code, COUNT(*), SUM(o.discount), SUM(o.total) " +
+                "FROM orders o JOIN vouchers v ON v.id = o.voucher_id " +
+                "WHERE o.created_at >= ? AND o.created_at < ? AND " + VALID_ORDER_FILTER + " " +
+                "GROUP BY v.code",
+                false, 1, 3));
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path reportDir;
+    private final long ttlHours;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public ReportJobService(JdbcTemplate jdbcTemplate,
+            @Value("${app.report.dir:${java.io.tmpdir}/asm-reports}") String reportDir,
+            @Value("${app.report.ttl-hours:24}") long ttlHours,
+            @Value("${app.report.workers:2}") int workers,
+            @Value("${app.report.queue-capacity:20}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reportDir = Paths.get(reportDir);
+        this.ttlHours = ttlHours;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "report-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Gửi yêu cầu tạo báo cáo
+     *
+     * @param type     Loại báo cáo
+     * @param fromDate Từ ngày (mặc định 30 ngày trước toDate)
+     * @param toDate   Tới ngày (mặc định hôm nay)
+     * @return Thông tin job vừa tạo (trạng thái QUEUED)
+     * @throws RuntimeException nếu khoảng ngày không hợp lệ hoặc hàng đợi đã đầy
+     */
+    public ReportJobResponse submit(ReportType type, LocalDate fromDate, LocalDate toDate) {
+        LocalDate to = toDate != null ? toDate : LocalDate.now();
+        LocalDate from = fromDate != null ? fromDate : to.minusDays(30);
+        if (from.isAfter(to)) {
+            throw new RuntimeException("Từ ngày phải trước hoặc bằng tới ngày");
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), type, from, to);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            throw new RuntimeException("Đang có quá nhiều báo cáo chờ xử lý, vui lòng thử lại sau");
+        }
+        return toResponse(job);
+    }
+
+    public Optional<ReportJobResponse> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(this::toResponse);
+    }
+
+    /**
+     * Danh sách job còn hiệu lực, mới nhất trước
+     */
+    public List<ReportJobResponse> getJobs() {
+        List<ReportJobResponse> result = new ArrayList<>();
+        jobs.values().stream()
+                .sorted(Comparator.comparing((Job job) -> job.createdAt).reversed())
+                .forEach(job -> result.add(toResponse(job)));
+        return result;
+    }
+
+    /**
+     * Ghi file kết quả của job ra OutputStream
+     *
+     * @throws RuntimeException nếu job không tồn tại, chưa xong hoặc đã hết hạn
+     */
+    public void writeResult(String id, OutputStream out) throws IOException {
+        Job job = jobs.get(id);
+        if (job == null) {
+            throw new RuntimeException("Báo cáo không tồn tại hoặc đã hết hạn");
+        }
+        if (job.status != JobStatus.COMPLETED || job.file == null || !Files.exists(job.file)) {
+            throw new RuntimeException("Báo cáo chưa sẵn sàng");
+        }
+        Files.copy(job.file, out);
+    }
+
+    public String getFileName(String id) {
+        Job job = jobs.get(id);
+        return job != null
+                ? "bao-cao-" + job.type.name().toLowerCase().replace('_', '-') + "-" + job.from + "-" + job.to + ".csv"
+                : "bao-cao.csv";
+    }
+
+    /**
+     * Xóa các job và file kết quả đã hết hạn (mỗi 30 phút)
+     */
+    @Scheduled(fixedDelayString = "${app.report.cleanup-interval-ms:1800000}")
+    public void cleanupExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        jobs.values().removeIf(job -> {
+            if (job.finishedAt == null || job.finishedAt.plusHours(ttlHours).isAfter(now)) {
+                return false;
+            }
+            deleteQuietly(job.file);
+            return true;
+        });
+    }
+
+    /**
+     * Xóa file kết quả còn sót trong app.report.dir từ lần chạy trước
+     */
+    @PostConstruct
+    public void sweepOrphanedFiles() {
+        if (!Files.isDirectory(reportDir)) {
+            return;
+        }
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(reportDir, RESULT_FILE_GLOB)) {
+            for (Path file : files) {
+                if (deleteQuietly(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Không đọc được thư mục báo cáo {}: {}", reportDir, e.getMessage());
+        }
+        if (deleted > 0) {
+            log.info("Đã xóa {} file báo cáo còn sót trong {}", deleted, reportDir);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(Job job) {
+        job.status = JobStatus.RUNNING;
+        ReportDefinition definition = DEFINITIONS.get(job.type);
+        try {
+            // Chia theo tháng: mỗi tháng một truy vấn, cộng dồn kết quả theo khóa (cột đầu tiên)
+            List<LocalDate[]> chunks = splitByMonth(job.from, job.to);
+            Map<Object, Object[]> rows = new LinkedHashMap<>();
+            for (int i = 0; i < chunks.size(); i++) {
+                LocalDate[] chunk = chunks.get(i);
+                Object start = definition.dateParams ? Date.valueOf(chunk[0]) : Timestamp.valueOf(chunk[0].atStartOfDay());
+                Object end = definition.dateParams ? Date.valueOf(chunk[1]) : Timestamp.valueOf(chunk[1].atStartOfDay());
+                jdbcTemplate.query(definition.sql, rs -> {
+                    Object key = rs.getObject(1);
+                    Object[] row = rows.get(key);
+                    if (row == null) {
+                        row = new Object[definition.headers.length];
+                        for (int c = 0; c < definition.labelColumns; c++) {
+                            row[c] = rs.getObject(c + 1);
+                        }
+                        for (int c = definition.labelColumns; c < row.length; c++) {
+                            row[c] = BigDecimal.ZERO;
+                        }
+                        rows.put(key, row);
+                    }
+                    for (int c = definition.labelColumns; c < row.length; c++) {
+                        BigDecimal value = rs.getBigDecimal(c + 1);
+                        if (value != null) {
+                            row[c] = ((BigDecimal) row[c]).add(value);
+                        }
+                    }
+                }, start, end);
+                // Giữ 5% cuối cho bước ghi file
+                job.progress = (int) ((i + 1) * 95L / chunks.size());
+            }
+
+            List<Object[]> sorted = new ArrayList<>(rows.values());
+            if (definition.sortColumn >= 0) {
+                sorted.sort(Comparator.comparing((Object[] row) -> (BigDecimal) row[definition.sortColumn]).reversed());
+            }
+            job.file = writeCsv(job, definition, sorted);
+            job.progress = 100;
+            job.status = JobStatus.COMPLETED;
+            job.message = "Hoàn thành: " + sorted.size() + " dòng";
+        } catch (Exception e) {
+            job.status = JobStatus.FAILED;
+            job.message = "Lỗi khi tạo báo cáo: " + e.getMessage();
+            log.error("Lỗi khi tạo báo cáo {}", job.id, e);
+        } finally {
+            if (job.status == JobStatus.RUNNING) {
+                job.status = JobStatus.FAILED;
+            }
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private Path writeCsv(Job job, ReportDefinition definition, List<Object[]> rows) throws IOException {
+        Files.createDirectories(reportDir);
+        Path tempFile = reportDir.resolve(job.id + ".csv.tmp");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(tempFile),
+                StandardCharsets.UTF_8))) {
+            writer.write('\uFEFF');
+            OrderExportService.writeCsvLine(writer, definition.headers);
+            String[] values = new String[definition.headers.length];
+            for (Object[] row : rows) {
+                for (int c = 0; c < row.length; c++) {
+                    Object value = row[c];
+                    values[c] = value == null ? ""
+                            : value instanceof BigDecimal ? ((BigDecimal) value).toPlainString()
+                            : value instanceof Number ? value.toString()
+                            : OrderExportService.neutralizeFormula(value.toString());
+                }
+                OrderExportService.writeCsvLine(writer, values);
+            }
+        }
+        Path file = reportDir.resolve(job.id + ".csv");
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
+    /**
+     * Chia [from, to] thành các khoảng [start, end) theo tháng dương lịch
+     */
+    private static List<LocalDate[]> splitByMonth(LocalDate from, LocalDate to) {
+        List<LocalDate[]> chunks = new ArrayList<>();
+        LocalDate endExclusive = to.plusDays(1);
+        LocalDate start = from;
+        while (start.isBefore(endExclusive)) {
+            LocalDate nextMonth = start.withDayOfMonth(1).plusMonths(1);
+            LocalDate end = nextMonth.isBefore(endExclusive) ? nextMonth : endExclusive;
+            chunks.add(new LocalDate[] { start, end });
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static boolean deleteQuietly(Path file) {
+        if (file == null) {
+            return false;
+        }
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Không xóa được file báo cáo {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private ReportJobResponse toResponse(Job job) {
+        ReportJobResponse response = new ReportJobResponse();
+        response.setId(job.id);
+        response.setType(job.type);
+        response.setFromDate(job.from);
+        response.setToDate(job.to);
+        response.setStatus(job.status.name());
+        response.setProgress(job.progress);
+        response.setMessage(job.message);
+        response.setCreatedAt(job.createdAt);
+        response.setFinishedAt(job.finishedAt);
+        if (job.finishedAt != null) {
+            response.setExpiresAt(job.finishedAt.plusHours(ttlHours));
+        }
+        if (job.status == JobStatus.COMPLETED) {
+            response.setDownloadUrl("/api/admin/reports/" + job.id + "/download");
+        }
+        return response;
+    }
+
+    private enum JobStatus {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * Trạng thái của một job (được cập nhật từ luồng báo cáo, đọc từ luồng web)
+     */
+    private static class Job {
+        final String id;
+        final ReportType type;
+        final LocalDate from;
+        final LocalDate to;
+        final LocalDateTime createdAt = LocalDateTime.now();
+        volatile JobStatus status = JobStatus.QUEUED;
+        volatile int progress;
+        volatile String message;
+        volatile LocalDateTime finishedAt;
+        volatile Path file;
+
+        Job(String id, ReportType type, LocalDate from, LocalDate to) {
+            this.id = id;
+            this.type = type;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    /**
+     * Định nghĩa một loại báo cáo: các cột đầu là nhãn (cột 1 là khóa gộp), các cột còn lại được cộng dồn
+     */
+    private static class ReportDefinition {
+        final String[] headers;
+        final String sql;
+        final boolean dateParams;
+        final int labelColumns;
+        final int sortColumn;
+
+        ReportDefinition(String[] headers, String sql, boolean dateParams, int labelColumns, int sortColumn) {
+            this.headers = headers;
+            this.sql = sql;
+            this.dateParams = dateParams;
+            this.labelColumns = labelColumns;
+            this.sortColumn = sortColumn;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.dto.RevenueSeriesResponse;
+import com.example.asmproject.model.Order;
+import com.example.asmproject.model.enums.TimeBucket;
+import com.example.asmproject.repository.DailySalesRepository;
+import com.example.asmproject.repository.OrderRepository;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service tính chuỗi doanh thu theo thời gian cho biểu đồ admin
+ *
+ * - Độ chia ngày / tuần / tháng đọc từ bảng tổng hợp daily_sales (mỗi ngày tối đa vài dòng),
+ *   sau đó gộp vào các khoảng trong bộ nhớ
+ * - Độ chia giờ tính bằng GROUP BY trên bảng orders (chỉ cho khoảng ngắn, xem app.analytics.max-points)
+ * - Khoảng không có đơn được điền 0, kết quả trả về dạng mảng song song (labels, revenue, orders)
+ * - Kết quả được cache theo (trạng thái, độ chia, khoảng ngày) trong app.analytics.cache-ttl-seconds giây
+ *
+ * Giống dashboard, đơn hàng được tính theo ngày đặt và trạng thái hiện tại.
+ */
+@Service
+public class RevenueAnalyticsService {
+
+    private static final DateTimeFormatter HOUR_LABEL = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:00");
+    private static final DateTimeFormatter MONTH_LABEL = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    @Autowired
+    private DailySalesRepository dailySalesRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private final int maxPoints;
+    private final Cache<String, RevenueSeriesResponse> cache;
+
+    public RevenueAnalyticsService(@Value("${app.analytics.max-points:2000}") int maxPoints,
+            @Value("${app.analytics.cache-ttl-seconds:60}") long cacheTtlSeconds) {
+        this.maxPoints = maxPoints;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(500)
+                .expireAfterWrite(cacheTtlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Doanh thu và số đơn theo từng khoảng thời gian trong [from, to]
+     *
+     * @param from   Từ ngày
+     * @param to     Tới ngày (tính cả ngày này)
+     * @param bucket Độ chia thời gian
+     * @param status Trạng thái đơn hàng được tính (mặc định DELIVERED)
+     * @throws RuntimeException nếu khoảng ngày không hợp lệ hoặc có quá nhiều điểm dữ liệu
+     */
+    public RevenueSeriesResponse getRevenueSeries(LocalDate from, LocalDate to, TimeBucket bucket,
+            Order.OrderStatus status) {
+        if (from.isAfter(to)) {
+            throw new RuntimeException("Từ ngày phải trước hoặc bằng tới ngày");
+        }
+        Order.OrderStatus orderStatus = status != null ? status : Order.OrderStatus.DELIVERED;
+        int points = indexOf(bucket, from, to.atTime(23, 0)) + 1;
+        if (points > maxPoints) {
+            throw new RuntimeException("Khoảng thời gian quá dài cho độ chia " + bucket.name().toLowerCase()
+                    + " (" + points + " điểm, tối đa " + maxPoints + ")");
+        }
+
+        String key = orderStatus + ":" + bucket + ":" + from + ":" + to;
+        try {
+            return cache.get(key, () -> load(from, to, bucket, orderStatus, points));
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private RevenueSeriesResponse load(LocalDate from, LocalDate to, TimeBucket bucket,
+            Order.OrderStatus status, int points) {
+        BigDecimal[] revenue = new BigDecimal[points];
+        long[] orders = new long[points];
+        Arrays.fill(revenue, BigDecimal.ZERO);
+
+        if (bucket == TimeBucket.HOUR) {
+            for (Object[] row : orderRepository.sumByHour(status, from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+                LocalDateTime time = ((LocalDate) row[0]).atTime(((Number) row[1]).intValue(), 0);
+                add(revenue, orders, indexOf(bucket, from, time), (Number) row[2], (BigDecimal) row[3]);
+            }
+        } else {
+            for (Object[] row : dailySalesRepository.sumByDate(status, from, to)) {
+                LocalDateTime time = ((LocalDate) row[0]).atStartOfDay();
+                add(revenue, orders, indexOf(bucket, from, time), (Number) row[1], (BigDecimal) row[2]);
+            }
+        }
+
+        List<String> labels = new ArrayList<>(points);
+        List<BigDecimal> revenueList = new ArrayList<>(points);
+        List<Long> orderList = new ArrayList<>(points);
+        BigDecimal totalRevenue = BigDecimal.ZERO;
+        long totalOrders = 0;
+        LocalDateTime start = bucketStart(bucket, from);
+        for (int i = 0; i < points; i++) {
+            labels.add(label(bucket, start, i));
+            revenueList.add(revenue[i]);
+            orderList.add(orders[i]);
+            totalRevenue = totalRevenue.add(revenue[i]);
+            totalOrders += orders[i];
+        }
+
+        RevenueSeriesResponse response = new RevenueSeriesResponse();
+        response.setFromDate(from);
+        response.setToDate(to);
+        response.setBucket(bucket);
+        response.setStatus(status);
+        response.setLabels(Collections.unmodifiableList(labels));
+        response.setRevenue(Collections.unmodifiableList(revenueList));
+        response.setOrders(Collections.unmodifiableList(orderList));
+        response.setTotalRevenue(totalRevenue);
+        response.setTotalOrders(totalOrders);
+        return response;
+    }
+
+    private static void add(BigDecimal[] revenue, long[] orders, int index, Number count, BigDecimal amount) {
+        if (index < 0 || index >= orders.length) {
+            return;
+        }
+        orders[index] += count.longValue();
+        if (amount != null) {
+            revenue[index] = revenue[index].add(amount);
+        }
+    }
+
+    /**
+     * Mốc bắt đầu của khoảng đầu tiên (tuần bắt đầu từ thứ Hai, tháng từ ngày 1)
+     */
+    private static LocalDateTime bucketStart(TimeBucket bucket, LocalDate from) {
+        switch (bucket) {
+            case WEEK:
+                return from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+            case MONTH:
+                return from.withDayOfMonth(1).atStartOfDay();
+            default:
+                return from.atStartOfDay();
+        }
+    }
+
+    /**
+     * Vị trí của thời điểm time trong mảng kết quả
+     */
+    private static int indexOf(TimeBucket bucket, LocalDate from, LocalDateTime time) {
+        LocalDateTime start = bucketStart(bucket, from);
+        switch (bucket) {
+            case HOUR:
+                return (int) ChronoUnit.HOURS.between(start, time);
+            case DAY:
+                return (int) ChronoUnit.DAYS.between(start, time);
+            case WEEK:
+                return (int) ChronoUnit.WEEKS.between(start, time);
+            default:
+                return (int) ChronoUnit.MONTHS.between(start, time);
+        }
+    }
+
+    private static String label(TimeBucket bucket, LocalDateTime start, int index) {
+        switch (bucket) {
+            case HOUR:
+                return start.plusHours(index).format(HOUR_LABEL);
+            case DAY:
+                return start.toLocalDate().plusDays(index).toString();
+            case WEEK:
+                return start.toLocalDate().plusWeeks(index).toString();
+            default:
+                return start.plusMonths(index).format(MONTH_LABEL);
+        }
+    }
+}
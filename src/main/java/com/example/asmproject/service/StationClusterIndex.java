@@ -0,0 +1,263 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.model.ChargingStation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gom cụm trạm sạc theo từng mức zoom bản đồ (lưới cố định trên tọa độ Web Mercator)
+ *
+ * - Ở zoom z, bản đồ rộng 256 * 2^z pixel, mỗi ô lưới CELL_PIXELS x CELL_PIXELS pixel là một cụm
+ * - Mỗi mức zoom giữ map ô -> (số trạm, tổng vĩ độ, tổng kinh độ, tổng id), tâm cụm = trung bình tọa độ,
+ *   cụm chỉ có 1 trạm thì tổng id chính là id trạm đó
+ * - Truy vấn theo khung nhìn chỉ duyệt các ô nằm trong khung (số ô phụ thuộc kích thước màn hình,
+ *   không phụ thuộc số trạm)
+ * - Thêm / sửa / ẩn một trạm chỉ cập nhật đúng một ô ở mỗi mức zoom, không xây lại toàn bộ
+ */
+public final class StationClusterIndex {
+
+    public static final int CELL_PIXELS = 64;
+
+    private static final double MAX_MERCATOR_LATITUDE = 85.05112878;
+
+    private final int maxZoom;
+
+    // levels[z]: khóa ô (x << 32 | y) -> cụm
+    private final List<Map<Long, Cell>> levels;
+
+    // Vị trí hiện tại của các trạm đang được gom cụm: id -> {vĩ độ, kinh độ}
+    private final Map<Long, double[]> positions = new HashMap<>();
+
+    private StationClusterIndex(int maxZoom) {
+        this.maxZoom = maxZoom;
+        this.levels = new ArrayList<>(maxZoom + 1);
+        for (int z = 0; z <= maxZoom; z++) {
+            levels.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Gom cụm các trạm đang hoạt động cho các mức zoom 0..maxZoom
+     */
+    public static StationClusterIndex build(List<ChargingStation> stations, int maxZoom) {
+        StationClusterIndex index = new StationClusterIndex(maxZoom);
+        for (ChargingStation station : stations) {
+            if (station.getStatus() == ChargingStation.StationStatus.ACTIVE
+                    && station.getLatitude() != null && station.getLongitude() != null) {
+                index.positions.put(station.getId(),
+                        new double[] { station.getLatitude().doubleValue(), station.getLongitude().doubleValue() });
+            }
+        }
+
+        // Chiếu Mercator một lần cho mỗi trạm
+        int n = index.positions.size();
+        long[] ids = new long[n];
+        double[][] coordinates = new double[n][];
+        double[] mercatorX = new double[n];
+        double[] mercatorY = new double[n];
+        int i = 0;
+        for (Map.Entry<Long, double[]> entry : index.positions.entrySet()) {
+            ids[i] = entry.getKey();
+            coordinates[i] = entry.getValue();
+            mercatorX[i] = mercatorX(entry.getValue()[1]);
+            mercatorY[i] = mercatorY(entry.getValue()[0]);
+            i++;
+        }
+
+        // Cộng dồn từng mức zoom trên mảng tạm {số trạm, tổng vĩ độ, tổng kinh độ, tổng id} rồi mới tạo Cell
+        for (int z = 0; z <= maxZoom; z++) {
+            long cellsPerAxis = cellsPerAxis(z);
+            Map<Long, double[]> sums = new HashMap<>();
+            for (int k = 0; k < n; k++) {
+                long key = key(toCell(mercatorX[k], cellsPerAxis), toCell(mercatorY[k], cellsPerAxis));
+                double[] sum = sums.computeIfAbsent(key, c -> new double[4]);
+                sum[0]++;
+                sum[1] += coordinates[k][0];
+                sum[2] += coordinates[k][1];
+                sum[3] += ids[k];
+            }
+            Map<Long, Cell> cells = index.levels.get(z);
+            for (Map.Entry<Long, double[]> entry : sums.entrySet()) {
+                double[] sum = entry.getValue();
+                cells.put(entry.getKey(), new Cell((int) sum[0], sum[1], sum[2], (long) sum[3]));
+            }
+        }
+        return index;
+    }
+
+    public int getMaxZoom() {
+        return maxZoom;
+    }
+
+    /**
+     * Cập nhật một trạm sau khi lưu: bỏ khỏi cụm cũ, thêm vào cụm mới nếu trạm đang hoạt động
+     */
+    public synchronized void update(ChargingStation station) {
+        Long id = station.getId();
+        double[] old = positions.remove(id);
+        if (old != null) {
+            apply(id, old[0], old[1], -1);
+        }
+        if (station.getStatus() == ChargingStation.StationStatus.ACTIVE
+                && station.getLatitude() != null && station.getLongitude() != null) {
+            double latitude = station.getLatitude().doubleValue();
+            double longitude = station.getLongitude().doubleValue();
+            positions.put(id, new double[] { latitude, longitude });
+            apply(id, latitude, longitude, 1);
+        }
+    }
+
+    /**
+     * Các cụm có ô lưới giao với khung [minLat, maxLat] x [minLng, maxLng] ở mức zoom (0..maxZoom).
+     * minLng > maxLng nghĩa là khung vắt qua kinh tuyến 180.
+     */
+    public List<Cluster> clusters(double minLat, double minLng, double maxLat, double maxLng, int zoom) {
+        int level = Math.max(0, Math.min(zoom, maxZoom));
+        Map<Long, Cell> cells = levels.get(level);
+        long cellsPerAxis = cellsPerAxis(level);
+        long minY = cellY(maxLat, cellsPerAxis);
+        long maxY = cellY(minLat, cellsPerAxis);
+        long minX = cellX(minLng, cellsPerAxis);
+        long maxX = cellX(maxLng, cellsPerAxis);
+
+        List<Cluster> result = new ArrayList<>();
+        if (minLng > maxLng) {
+            collect(cells, minX, cellsPerAxis - 1, minY, maxY, result);
+            collect(cells, 0, maxX, minY, maxY, result);
+        } else {
+            collect(cells, minX, maxX, minY, maxY, result);
+        }
+        return result;
+    }
+
+    private void collect(Map<Long, Cell> cells, long minX, long maxX, long minY, long maxY, List<Cluster> result) {
+        long rangeSize = (maxX - minX + 1) * (maxY - minY + 1);
+        if (rangeSize > cells.size()) {
+            // Khung lớn hơn số ô đang có trạm: duyệt các ô có trạm thay vì từng ô trong khung
+            for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+                long x = entry.getKey() >>> 32;
+                long y = entry.getKey() & 0xFFFFFFFFL;
+                if (x >= minX && x <= maxX && y >= minY && y <= maxY) {
+                    result.add(entry.getValue().toCluster());
+                }
+            }
+            return;
+        }
+        for (long x = minX; x <= maxX; x++) {
+            for (long y = minY; y <= maxY; y++) {
+                Cell cell = cells.get(key(x, y));
+                if (cell != null) {
+                    result.add(cell.toCluster());
+                }
+            }
+        }
+    }
+
+    private void apply(Long id, double latitude, double longitude, int sign) {
+        for (int z = 0; z <= maxZoom; z++) {
+            long cellsPerAxis = cellsPerAxis(z);
+            long key = key(cellX(longitude, cellsPerAxis), cellY(latitude, cellsPerAxis));
+            levels.get(z).compute(key, (k, cell) -> {
+                Cell updated = (cell == null ? Cell.EMPTY : cell).plus(sign, latitude, longitude, id);
+                return updated.count == 0 ? null : updated;
+            });
+        }
+    }
+
+    private static long cellsPerAxis(int zoom) {
+        return (256L << zoom) / CELL_PIXELS;
+    }
+
+    private static long cellX(double longitude, long cellsPerAxis) {
+        return toCell(mercatorX(longitude), cellsPerAxis);
+    }
+
+    private static long cellY(double latitude, long cellsPerAxis) {
+        return toCell(mercatorY(latitude), cellsPerAxis);
+    }
+
+    /**
+     * Tọa độ Web Mercator chuẩn hóa về [0, 1]
+     */
+    private static double mercatorX(double longitude) {
+        return (longitude + 180) / 360;
+    }
+
+    private static double mercatorY(double latitude) {
+        double lat = Math.toRadians(Math.max(-MAX_MERCATOR_LATITUDE, Math.min(MAX_MERCATOR_LATITUDE, latitude)));
+        return 0.5 - Math.log(Math.tan(Math.PI / 4 + lat / 2)) / (2 * Math.PI);
+    }
+
+    private static long toCell(double normalized, long cellsPerAxis) {
+        long cell = (long) Math.floor(normalized * cellsPerAxis);
+        return Math.max(0, Math.min(cellsPerAxis - 1, cell));
+    }
+
+    private static long key(long x, long y) {
+        return (x << 32) | y;
+    }
+
+    /**
+     * Một cụm trên bản đồ: tâm (trung bình tọa độ các trạm), số trạm, id trạm nếu cụm chỉ có 1 trạm
+     */
+    public static final class Cluster {
+        private final double latitude;
+        private final double longitude;
+        private final int count;
+        private final Long stationId;
+
+        private Cluster(double latitude, double longitude, int count, Long stationId) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.count = count;
+            this.stationId = stationId;
+        }
+
+        public double getLatitude() {
+            return latitude;
+        }
+
+        public double getLongitude() {
+            return longitude;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public Long getStationId() {
+            return stationId;
+        }
+    }
+
+    /**
+     * Giá trị bất biến của một ô, mỗi lần cập nhật thay bằng ô mới (đọc đồng thời không thấy giá trị dở dang)
+     */
+    private static final class Cell {
+        private static final Cell EMPTY = new Cell(0, 0, 0, 0);
+
+        private final int count;
+        private final double latitudeSum;
+        private final double longitudeSum;
+        private final long idSum;
+
+        private Cell(int count, double latitudeSum, double longitudeSum, long idSum) {
+            this.count = count;
+            this.latitudeSum = latitudeSum;
+            this.longitudeSum = longitudeSum;
+            this.idSum = idSum;
+        }
+
+        private Cell plus(int sign, double latitude, double longitude, long id) {
+            return new Cell(count + sign, latitudeSum + sign * latitude, longitudeSum + sign * longitude, idSum + sign * id);
+        }
+
+        private Cluster toCluster() {
+            return new Cluster(latitudeSum / count, longitudeSum / count, count, count == 1 ? idSum : null);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.model.ChargingStation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Nhóm trạm sạc theo tỉnh và quận/huyện (bất biến, xây cùng lúc với StationSpatialIndex và
+ * xây lại khi trạm thay đổi theo cùng cơ chế chống ghi đè dữ liệu cũ của ChargingStationService)
+ *
+ * Khóa tỉnh do LocationService.provinceKey tính (mã tỉnh trong danh mục hành chính nếu nhận ra),
+ * khóa quận/huyện là tên đã chuẩn hóa, nên "TP. Hồ Chí Minh" của trạm và "701,Tp Hồ Chí Minh"
+ * trong sổ địa chỉ của khách hàng rơi vào cùng một nhóm.
+ */
+public final class StationRegionIndex {
+
+    private final Map<String, List<ChargingStation>> byProvince;
+    private final Map<String, List<ChargingStation>> byDistrict;
+    private final Map<String, List<ChargingStation>> byProvinceAndDistrict;
+
+    private StationRegionIndex(Map<String, List<ChargingStation>> byProvince,
+            Map<String, List<ChargingStation>> byDistrict,
+            Map<String, List<ChargingStation>> byProvinceAndDistrict) {
+        this.byProvince = byProvince;
+        this.byDistrict = byDistrict;
+        this.byProvinceAndDistrict = byProvinceAndDistrict;
+    }
+
+    /**
+     * Nhóm các trạm theo provinceKey(tỉnh) và tên quận/huyện đã chuẩn hóa
+     */
+    public static StationRegionIndex build(List<ChargingStation> stations, Function<String, String> provinceKey) {
+        Map<String, List<ChargingStation>> byProvince = new HashMap<>();
+        Map<String, List<ChargingStation>> byDistrict = new HashMap<>();
+        Map<String, List<ChargingStation>> byProvinceAndDistrict = new HashMap<>();
+        for (ChargingStation station : stations) {
+            String province = provinceKey.apply(station.getProvince());
+            String district = LocationService.normalizeRegionName(station.getDistrict());
+            if (province != null) {
+                byProvince.computeIfAbsent(province, key -> new ArrayList<>()).add(station);
+            }
+            if (district != null && !district.isEmpty()) {
+                byDistrict.computeIfAbsent(district, key -> new ArrayList<>()).add(station);
+                if (province != null) {
+                    byProvinceAndDistrict.computeIfAbsent(key(province, district), key -> new ArrayList<>()).add(station);
+                }
+            }
+        }
+        return new StationRegionIndex(freeze(byProvince), freeze(byDistrict), freeze(byProvinceAndDistrict));
+    }
+
+    public List<ChargingStation> inProvince(String provinceKey) {
+        return provinceKey == null ? Collections.emptyList() : byProvince.getOrDefault(provinceKey, Collections.emptyList());
+    }
+
+    /**
+     * Trạm theo tên quận/huyện đã chuẩn hóa (mọi tỉnh)
+     */
+    public List<ChargingStation> inDistrict(String district) {
+        return district == null ? Collections.emptyList() : byDistrict.getOrDefault(district, Collections.emptyList());
+    }
+
+    public List<ChargingStation> inDistrict(String provinceKey, String district) {
+        if (provinceKey == null || district == null) {
+            return Collections.emptyList();
+        }
+        return byProvinceAndDistrict.getOrDefault(key(provinceKey, district), Collections.emptyList());
+    }
+
+    private static String key(String provinceKey, String district) {
+        return provinceKey + "|" + district;
+    }
+
+    private static Map<String, List<ChargingStation>> freeze(Map<String, List<ChargingStation>> groups) {
+        for (Map.Entry<String, List<ChargingStation>> entry : groups.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,398 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.model.ChargingStation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Chỉ mục không gian (k-d tree) bất biến trên danh sách trạm sạc
+ *
+ * - Mỗi trạm được chiếu một lần lên mặt cầu đơn vị (x, y, z) = (cos φ cos λ, cos φ sin λ, sin φ) và lưu
+ *   dạng mảng song song xs / ys / zs. Khoảng cách Euclid giữa hai điểm (dây cung) tăng cùng chiều với
+ *   khoảng cách trên mặt cầu, nên tìm theo dây cung cho kết quả chính xác như haversine, không cần
+ *   sin / cos / BigDecimal trong vòng lặp và không bị lỗi ở kinh tuyến 180 hay gần hai cực
+ * - Khoảng cách km của kết quả đổi trực tiếp từ dây cung: d = 2R · asin(c / 2)
+ * - Cây được lưu ngầm trong mảng: node của đoạn [lo, hi) là phần tử giữa, trục chia = độ sâu % 3
+ * - k trạm gần nhất: duyệt cây, cắt nhánh theo khoảng cách tới mặt phẳng chia, giữ top-k trong heap giới hạn k
+ * - Bán kính: duyệt cây, cắt nhánh nằm ngoài bán kính
+ * - Khung bản đồ (bounding box): tìm nhị phân trên mảng vĩ độ đã sắp xếp, lọc kinh độ trong dải vĩ độ đó
+ */
+public final class StationSpatialIndex {
+
+    /** Bán kính Trái Đất (km), giống ChargingStation.calculateDistance */
+    public static final double EARTH_RADIUS_KM = 6371;
+
+    private final List<ChargingStation> ordered;
+    private final ChargingStation[] stations;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+
+    // Vị trí trong stations sắp theo vĩ độ tăng dần, dùng cho tìm theo khung bản đồ
+    private int[] byLatitude;
+    private double[] sortedLatitudes;
+    private double[] longitudesByLatitude;
+
+    private StationSpatialIndex(List<ChargingStation> ordered, ChargingStation[] stations) {
+        int n = stations.length;
+        this.ordered = ordered;
+        this.stations = stations;
+        this.xs = new double[n];
+        this.ys = new double[n];
+        this.zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double lat = Math.toRadians(stations[i].getLatitude().doubleValue());
+            double lng = Math.toRadians(stations[i].getLongitude().doubleValue());
+            double cosLat = Math.cos(lat);
+            xs[i] = cosLat * Math.cos(lng);
+            ys[i] = cosLat * Math.sin(lng);
+            zs[i] = Math.sin(lat);
+        }
+    }
+
+    /**
+     * Xây chỉ mục từ danh sách trạm (bỏ qua trạm thiếu tọa độ)
+     */
+    public static StationSpatialIndex build(List<ChargingStation> source) {
+        List<ChargingStation> valid = new ArrayList<>(source.size());
+        for (ChargingStation station : source) {
+            if (station.getLatitude() != null && station.getLongitude() != null) {
+                valid.add(station);
+            }
+        }
+        StationSpatialIndex index = new StationSpatialIndex(Collections.unmodifiableList(valid),
+                valid.toArray(new ChargingStation[0]));
+        index.buildTree(0, valid.size(), 0);
+        index.buildLatitudeOrder();
+        return index;
+    }
+
+    public int size() {
+        return stations.length;
+    }
+
+    /**
+     * Tất cả trạm trong chỉ mục, theo thứ tự của danh sách nguồn
+     */
+    public List<ChargingStation> getStations() {
+        return ordered;
+    }
+
+    /**
+     * k trạm gần (latitude, longitude) nhất, gần nhất trước, kèm khoảng cách (km)
+     */
+    public Hits nearest(double latitude, double longitude, int k) {
+        if (k <= 0 || stations.length == 0) {
+            return Hits.EMPTY;
+        }
+        double lat = Math.toRadians(latitude);
+        double lng = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        Candidates heap = new Candidates(Math.min(k, stations.length));
+        searchNearest(0, stations.length, 0, cosLat * Math.cos(lng), cosLat * Math.sin(lng), Math.sin(lat), k, heap);
+        return heap.toHits();
+    }
+
+    /**
+     * Các trạm trong bán kính radiusKm quanh (latitude, longitude), gần nhất trước, kèm khoảng cách (km)
+     */
+    public Hits withinRadius(double latitude, double longitude, double radiusKm) {
+        if (radiusKm < 0 || stations.length == 0) {
+            return Hits.EMPTY;
+        }
+        double lat = Math.toRadians(latitude);
+        double lng = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+        double chord = chordOfDistance(radiusKm);
+        Candidates found = new Candidates(16);
+        searchRadius(0, stations.length, 0, cosLat * Math.cos(lng), cosLat * Math.sin(lng), Math.sin(lat),
+                chord * chord, found);
+        return found.toHits();
+    }
+
+    /**
+     * Các trạm trong khung [minLat, maxLat] x [minLng, maxLng], theo vĩ độ tăng dần.
+     * minLng > maxLng nghĩa là khung vắt qua kinh tuyến 180.
+     */
+    public List<ChargingStation> withinBounds(double minLat, double minLng, double maxLat, double maxLng) {
+        List<ChargingStation> result = new ArrayList<>();
+        boolean wrapsAntimeridian = minLng > maxLng;
+        for (int i = lowerBound(minLat); i < sortedLatitudes.length && sortedLatitudes[i] <= maxLat; i++) {
+            double lng = longitudesByLatitude[i];
+            boolean inside = wrapsAntimeridian ? (lng >= minLng || lng <= maxLng) : (lng >= minLng && lng <= maxLng);
+            if (inside) {
+                result.add(stations[byLatitude[i]]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Đổi khoảng cách trên mặt đất (km) sang độ dài dây cung trên mặt cầu đơn vị
+     */
+    static double chordOfDistance(double distanceKm) {
+        double angle = Math.min(distanceKm / EARTH_RADIUS_KM, Math.PI);
+        return 2 * Math.sin(angle / 2);
+    }
+
+    /**
+     * Đổi bình phương dây cung trên mặt cầu đơn vị sang khoảng cách trên mặt đất (km)
+     */
+    static double distanceOfSquaredChord(double squaredChord) {
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(squaredChord) / 2));
+    }
+
+    private void buildLatitudeOrder() {
+        int n = stations.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> stations[a].getLatitude().compareTo(stations[b].getLatitude()));
+        byLatitude = new int[n];
+        sortedLatitudes = new double[n];
+        longitudesByLatitude = new double[n];
+        for (int i = 0; i < n; i++) {
+            byLatitude[i] = order[i];
+            sortedLatitudes[i] = stations[order[i]].getLatitude().doubleValue();
+            longitudesByLatitude[i] = stations[order[i]].getLongitude().doubleValue();
+        }
+    }
+
+    /**
+     * Vị trí đầu tiên trong sortedLatitudes có vĩ độ >= latitude
+     */
+    private int lowerBound(double latitude) {
+        int lo = 0;
+        int hi = sortedLatitudes.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedLatitudes[mid] < latitude) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void buildTree(int lo, int hi, int depth) {
+        if (hi - lo <= 1) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi - 1, mid, axis(depth));
+        buildTree(lo, mid, depth + 1);
+        buildTree(mid + 1, hi, depth + 1);
+    }
+
+    /**
+     * Quickselect: đưa phần tử thứ k (theo trục axis) về vị trí k, nhỏ hơn bên trái, lớn hơn bên phải
+     */
+    private void select(int left, int right, int k, double[] axis) {
+        while (left < right) {
+            double pivot = axis[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (axis[i] < pivot) {
+                    i++;
+                }
+                while (axis[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        swap(xs, i, j);
+        swap(ys, i, j);
+        swap(zs, i, j);
+        ChargingStation station = stations[i];
+        stations[i] = stations[j];
+        stations[j] = station;
+    }
+
+    private static void swap(double[] values, int i, int j) {
+        double value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    private double[] axis(int depth) {
+        int axis = depth % 3;
+        return axis == 0 ? xs : axis == 1 ? ys : zs;
+    }
+
+    private double squaredDistance(int i, double x, double y, double z) {
+        double dx = xs[i] - x;
+        double dy = ys[i] - y;
+        double dz = zs[i] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private void searchNearest(int lo, int hi, int depth, double x, double y, double z, int k, Candidates heap) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double distance = squaredDistance(mid, x, y, z);
+        if (heap.size < k) {
+            heap.push(mid, distance);
+        } else if (distance < heap.maxDistance()) {
+            heap.replaceMax(mid, distance);
+        }
+
+        int axis = depth % 3;
+        double diff = (axis == 0 ? x : axis == 1 ? y : z) - axis(depth)[mid];
+        // Tìm nhánh chứa điểm cần tìm trước, nhánh còn lại chỉ khi mặt phẳng chia gần hơn trạm xa nhất trong top-k
+        if (diff < 0) {
+            searchNearest(lo, mid, depth + 1, x, y, z, k, heap);
+            if (heap.size < k || diff * diff < heap.maxDistance()) {
+                searchNearest(mid + 1, hi, depth + 1, x, y, z, k, heap);
+            }
+        } else {
+            searchNearest(mid + 1, hi, depth + 1, x, y, z, k, heap);
+            if (heap.size < k || diff * diff < heap.maxDistance()) {
+                searchNearest(lo, mid, depth + 1, x, y, z, k, heap);
+            }
+        }
+    }
+
+    private void searchRadius(int lo, int hi, int depth, double x, double y, double z, double maxDistance,
+            Candidates found) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double distance = squaredDistance(mid, x, y, z);
+        if (distance <= maxDistance) {
+            found.push(mid, distance);
+        }
+
+        int axis = depth % 3;
+        double diff = (axis == 0 ? x : axis == 1 ? y : z) - axis(depth)[mid];
+        if (diff < 0 || diff * diff <= maxDistance) {
+            searchRadius(lo, mid, depth + 1, x, y, z, maxDistance, found);
+        }
+        if (diff >= 0 || diff * diff <= maxDistance) {
+            searchRadius(mid + 1, hi, depth + 1, x, y, z, maxDistance, found);
+        }
+    }
+
+    /**
+     * Kết quả tìm kiếm: trạm gần nhất trước, distancesKm[i] là khoảng cách tới stations.get(i)
+     */
+    public static final class Hits {
+        private static final Hits EMPTY = new Hits(Collections.emptyList(), new double[0]);
+
+        private final List<ChargingStation> stations;
+        private final double[] distancesKm;
+
+        private Hits(List<ChargingStation> stations, double[] distancesKm) {
+            this.stations = stations;
+            this.distancesKm = distancesKm;
+        }
+
+        public List<ChargingStation> getStations() {
+            return stations;
+        }
+
+        public double[] getDistancesKm() {
+            return distancesKm;
+        }
+    }
+
+    /**
+     * Max-heap (vị trí trạm, bình phương dây cung) trên hai mảng song song, không tạo object cho từng ứng viên
+     */
+    private final class Candidates {
+        private int[] positions;
+        private double[] distances;
+        private int size;
+
+        private Candidates(int capacity) {
+            positions = new int[Math.max(capacity, 1)];
+            distances = new double[positions.length];
+        }
+
+        private double maxDistance() {
+            return distances[0];
+        }
+
+        private void push(int position, double distance) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                distances = Arrays.copyOf(distances, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (distances[parent] >= distance) {
+                    break;
+                }
+                positions[i] = positions[parent];
+                distances[i] = distances[parent];
+                i = parent;
+            }
+            positions[i] = position;
+            distances[i] = distance;
+        }
+
+        private void replaceMax(int position, double distance) {
+            siftDown(0, position, distance);
+        }
+
+        private void siftDown(int i, int position, double distance) {
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                positions[i] = positions[child];
+                distances[i] = distances[child];
+                i = child;
+            }
+            positions[i] = position;
+            distances[i] = distance;
+        }
+
+        /**
+         * Lấy dần phần tử xa nhất ra cuối mảng kết quả (heap sort), đổi dây cung sang km
+         */
+        private Hits toHits() {
+            int n = size;
+            ChargingStation[] result = new ChargingStation[n];
+            double[] distancesKm = new double[n];
+            for (int i = n - 1; i >= 0; i--) {
+                result[i] = stations[positions[0]];
+                distancesKm[i] = distanceOfSquaredChord(distances[0]);
+                size--;
+                if (size > 0) {
+                    siftDown(0, positions[size], distances[size]);
+                }
+            }
+            return new Hits(Arrays.asList(result), distancesKm);
+        }
+    }
+}
@@ -6,11 +6,14 @@ import com.example.asmproject.dto.UserResponse;
 import com.example.asmproject.model.User;
 import com.example.asmproject.model.enums.UserStatus;
 import com.example.asmproject.repository.OrderRepository;
+import com.example.asmproject.repository.OrderSpecifications;
 import com.example.asmproject.repository.UserRepository;
 import com.example.asmproject.service.mapper.OrderMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -489,13 +492,19 @@ public class UserService {
     }
 
     /**
-     * Lấy lịch sử mua hàng của người dùng
+     * Lấy lịch sử mua hàng của người dùng theo trang, mới nhất trước.
+     * Đơn được nạp kèm user + địa chỉ, các dòng sản phẩm của cả trang nạp bằng một truy vấn IN (...)
      */
-    public List<OrderResponse> getPurchaseHistory(Long id) {
-        List<com.example.asmproject.model.Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(id);
-        return orders.stream()
-                .map(orderMapper::toResponse)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Page<OrderResponse> getPurchaseHistory(Long id, Pageable pageable) {
+        Page<com.example.asmproject.model.Order> orders = orderRepository.findAll(OrderSpecifications.user(id),
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(Sort.Direction.DESC, "createdAt")));
+        if (!orders.isEmpty()) {
+            orderRepository.findWithItemsByIdIn(orders.getContent().stream()
+                    .map(com.example.asmproject.model.Order::getId)
+                    .collect(Collectors.toList()));
+        }
+        return orders.map(orderMapper::toResponse);
     }
 
     /**
@@ -0,0 +1,444 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.dto.VoucherBulkRequest;
+import com.example.asmproject.dto.VoucherBulkResponse;
+import com.example.asmproject.model.Voucher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Service phát hành voucher hàng loạt (chiến dịch marketing)
+ *
+ * - Sinh N mã ngẫu nhiên cùng quy tắc giảm giá, hoặc nhập danh sách voucher từ CSV
+ * - Ghi bằng JDBC batch (BATCH_SIZE dòng mỗi lượt gửi) thay vì saveVoucher từng mã
+ * - Mã trùng trong cùng đợt bị loại bằng một Set trong bộ nhớ; mã đã có trong database bị bỏ qua
+ *   nhờ điều kiện NOT EXISTS trên cột code (unique index), mã sinh ngẫu nhiên bị trùng thì sinh lại
+ * - Toàn bộ đợt nằm trong một transaction: lỗi giữa chừng thì không có mã nào được tạo
+ */
+@Service
+@Transactional
+public class VoucherBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(VoucherBulkService.class);
+
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final int MAX_GENERATE_ROUNDS = 5;
+
+    private static final int MIN_CODE_LENGTH = 6;
+
+    private static final int MAX_CODE_LENGTH = 20;
+
+    private static final int DEFAULT_CODE_LENGTH = 8;
+
+    // Bỏ các ký tự dễ nhầm (0/O, 1/I) vì khách tự gõ mã
+    private static final char[] CODE_ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+
+    private static final Pattern PREFIX_PATTERN = Pattern.compile("[A-Z0-9_-]{0,20}");
+
+    // Mỗi dòng trả về 1 nếu đã thêm, 0 nếu mã đã tồn tại
+    private static final String INSERT_SQL =
+            "INSERT INTO vouchers (code, description, discount_type, discount_value, min_order_amount, " +
+            "max_discount_amount, quantity, used_count, start_date, end_date, status, campaign, created_at, updated_at) " +
+            "SELECT ?, ?, ?, ?, ?, ?, ?, 0, ?, ?, 'ACTIVE', ?, ?, ? " +
+            "WHERE NOT EXISTS (SELECT 1 FROM vouchers WHERE code = ?)";
+
+    private static final String[] REQUIRED_COLUMNS = {
+            "code", "discount_type", "discount_value", "quantity", "start_date", "end_date" };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private VoucherService voucherService;
+
+    @Value("${app.vouchers.bulk-max-count:100000}")
+    private int maxCount;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Sinh request.count mã ngẫu nhiên dạng PREFIX + codeLength ký tự, cùng quy tắc giảm giá
+     */
+    public VoucherBulkResponse generate(VoucherBulkRequest request) {
+        String campaign = normalizeCampaign(request.getCampaign());
+        if (campaign == null) {
+            throw new RuntimeException("Tên đợt phát hành không được để trống");
+        }
+        int count = request.getCount() != null ? request.getCount() : 0;
+        if (count < 1 || count > maxCount) {
+            throw new RuntimeException("Số lượng mã phải từ 1 đến " + maxCount);
+        }
+        String prefix = request.getPrefix() != null ? request.getPrefix().trim().toUpperCase(Locale.ROOT) : "";
+        if (!PREFIX_PATTERN.matcher(prefix).matches()) {
+            throw new RuntimeException("Tiền tố chỉ gồm chữ, số, '-' hoặc '_' (tối đa 20 ký tự)");
+        }
+        int codeLength = request.getCodeLength() != null ? request.getCodeLength() : DEFAULT_CODE_LENGTH;
+        if (codeLength < MIN_CODE_LENGTH || codeLength > MAX_CODE_LENGTH) {
+            throw new RuntimeException("Độ dài phần ngẫu nhiên của mã phải từ " + MIN_CODE_LENGTH
+                    + " đến " + MAX_CODE_LENGTH + " ký tự");
+        }
+
+        Voucher rules = new Voucher(prefix, request.getDiscountType(), request.getDiscountValue());
+        rules.setDescription(request.getDescription());
+        rules.setMinOrderAmount(request.getMinOrderAmount());
+        rules.setMaxDiscountAmount(request.getMaxDiscountAmount());
+        rules.setQuantity(request.getQuantity() != null ? request.getQuantity() : 1);
+        rules.setStartDate(request.getStartDate());
+        rules.setEndDate(request.getEndDate());
+        rules.setCampaign(campaign);
+        validateRules(rules);
+
+        long started = System.nanoTime();
+        Set<String> seen = new HashSet<>();
+        List<String> created = new ArrayList<>(count);
+        int remaining = count;
+        for (int round = 0; round < MAX_GENERATE_ROUNDS && remaining > 0; round++) {
+            List<Voucher> batch = new ArrayList<>(remaining);
+            while (batch.size() < remaining) {
+                String code = prefix + randomCode(codeLength);
+                if (seen.add(code)) {
+                    batch.add(copyWithCode(rules, code));
+                }
+            }
+            // Mã trùng với database không được thêm, lượt sau sinh mã khác bù vào
+            boolean[] inserted = insert(batch);
+            for (int i = 0; i < inserted.length; i++) {
+                if (inserted[i]) {
+                    created.add(batch.get(i).getCode());
+                }
+            }
+            remaining = count - created.size();
+        }
+        if (remaining > 0) {
+            throw new RuntimeException("Không sinh đủ mã không trùng, hãy tăng độ dài mã hoặc đổi tiền tố");
+        }
+
+        VoucherBulkResponse response = new VoucherBulkResponse();
+        response.setCampaign(campaign);
+        response.setRequested(count);
+        response.setCodes(created);
+        return finish(response, started);
+    }
+
+    /**
+     * Nhập voucher từ CSV (dòng đầu là tên cột, tách bằng dấu phẩy, giá trị có dấu phẩy đặt trong "..."):
+     * code, discount_type, discount_value, quantity, start_date, end_date bắt buộc;
+     * description, min_order_amount, max_discount_amount tùy chọn.
+     * Ngày dạng yyyy-MM-dd (cả ngày) hoặc yyyy-MM-dd HH:mm[:ss].
+     * Dòng lỗi và mã đã tồn tại được bỏ qua và báo lại trong errors.
+     */
+    public VoucherBulkResponse importCsv(String csv, String campaign) {
+        String campaignName = normalizeCampaign(campaign);
+        String[] lines = csv == null ? new String[0] : csv.split("\r?\n");
+
+        int headerLine = 0;
+        while (headerLine < lines.length && lines[headerLine].isBlank()) {
+            headerLine++;
+        }
+        if (headerLine == lines.length) {
+            throw new RuntimeException("File CSV trống");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> header = parseCsvLine(lines[headerLine].replace("\uFEFF", ""));
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new RuntimeException("File CSV thiếu cột " + column);
+            }
+        }
+        if (lines.length - headerLine - 1 > maxCount) {
+            throw new RuntimeException("File CSV có tối đa " + maxCount + " dòng dữ liệu");
+        }
+
+        long started = System.nanoTime();
+        VoucherBulkResponse response = new VoucherBulkResponse();
+        response.setCampaign(campaignName);
+        Set<String> seen = new HashSet<>();
+        List<Voucher> vouchers = new ArrayList<>();
+        List<Integer> lineNumbers = new ArrayList<>();
+        int requested = 0;
+        int skipped = 0;
+        for (int i = headerLine + 1; i < lines.length; i++) {
+            if (lines[i].isBlank()) {
+                continue;
+            }
+            requested++;
+            try {
+                Voucher voucher = parseRow(parseCsvLine(lines[i]), columns);
+                voucher.setCampaign(campaignName);
+                validateRules(voucher);
+                if (!seen.add(voucher.getCode())) {
+                    throw new RuntimeException("mã " + voucher.getCode() + " bị trùng trong file");
+                }
+                vouchers.add(voucher);
+                lineNumbers.add(i + 1);
+            } catch (RuntimeException e) {
+                skipped++;
+                addError(response, "Dòng " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+
+        boolean[] inserted = insert(vouchers);
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i]) {
+                response.getCodes().add(vouchers.get(i).getCode());
+            } else {
+                skipped++;
+                addError(response, "Dòng " + lineNumbers.get(i) + ": mã " + vouchers.get(i).getCode() + " đã tồn tại");
+            }
+        }
+
+        response.setRequested(requested);
+        response.setSkipped(skipped);
+        return finish(response, started);
+    }
+
+    /**
+     * Ghi các voucher bằng JDBC batch, trả về mảng đánh dấu dòng nào đã được thêm
+     */
+    private boolean[] insert(List<Voucher> vouchers) {
+        boolean[] inserted = new boolean[vouchers.size()];
+        if (vouchers.isEmpty()) {
+            return inserted;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, vouchers, BATCH_SIZE, (ps, voucher) -> {
+            ps.setString(1, voucher.getCode());
+            ps.setString(2, voucher.getDescription());
+            ps.setString(3, voucher.getDiscountType().name());
+            ps.setBigDecimal(4, voucher.getDiscountValue());
+            if (voucher.getMinOrderAmount() != null) {
+                ps.setBigDecimal(5, voucher.getMinOrderAmount());
+            } else {
+                ps.setNull(5, Types.DECIMAL);
+            }
+            if (voucher.getMaxDiscountAmount() != null) {
+                ps.setBigDecimal(6, voucher.getMaxDiscountAmount());
+            } else {
+                ps.setNull(6, Types.DECIMAL);
+            }
+            ps.setInt(7, voucher.getQuantity());
+            ps.setTimestamp(8, Timestamp.valueOf(voucher.getStartDate()));
+            ps.setTimestamp(9, Timestamp.valueOf(voucher.getEndDate()));
+            ps.setString(10, voucher.getCampaign());
+            ps.setTimestamp(11, now);
+            ps.setTimestamp(12, now);
+            ps.setString(13, voucher.getCode());
+        });
+
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                // Driver không báo số dòng (SUCCESS_NO_INFO) thì coi như đã thêm
+                inserted[index++] = count > 0 || count == Statement.SUCCESS_NO_INFO;
+            }
+        }
+        // Mã thuộc đợt phát hành không nằm trong danh mục voucher công khai
+        if (vouchers.get(0).getCampaign() == null) {
+            voucherService.invalidateCatalog();
+        }
+        return inserted;
+    }
+
+    private VoucherBulkResponse finish(VoucherBulkResponse response, long started) {
+        long elapsedMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        response.setCreated(response.getCodes().size());
+        response.setElapsedMs(elapsedMs);
+        response.setVouchersPerSecond(response.getCreated() * 1000L / elapsedMs);
+        log.info("Phát hành voucher (đợt {}): {} mã trong {} ms ({} mã/giây)", response.getCampaign(),
+                response.getCreated(), elapsedMs, response.getVouchersPerSecond());
+        return response;
+    }
+
+    private Voucher parseRow(List<String> values, Map<String, Integer> columns) {
+        Voucher voucher = new Voucher();
+        String code = value(values, columns, "code");
+        voucher.setCode(code != null ? code.toUpperCase(Locale.ROOT) : null);
+        voucher.setDescription(value(values, columns, "description"));
+        String discountType = value(values, columns, "discount_type");
+        try {
+            voucher.setDiscountType(discountType != null
+                    ? Voucher.DiscountType.valueOf(discountType.toUpperCase(Locale.ROOT)) : null);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("discount_type phải là PERCENTAGE hoặc FIXED");
+        }
+        voucher.setDiscountValue(decimal(values, columns, "discount_value"));
+        voucher.setMinOrderAmount(decimal(values, columns, "min_order_amount"));
+        voucher.setMaxDiscountAmount(decimal(values, columns, "max_discount_amount"));
+        String quantity = value(values, columns, "quantity");
+        try {
+            voucher.setQuantity(quantity != null ? Integer.valueOf(quantity) : null);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("quantity không phải số nguyên: " + quantity);
+        }
+        voucher.setStartDate(dateTime(values, columns, "start_date", false));
+        voucher.setEndDate(dateTime(values, columns, "end_date", true));
+        return voucher;
+    }
+
+    /**
+     * Kiểm tra quy tắc giảm giá dùng chung cho sinh mã và nhập CSV
+     */
+    private void validateRules(Voucher voucher) {
+        if (voucher.getCode() == null || voucher.getCode().length() > 50) {
+            throw new RuntimeException("Mã voucher không được để trống và tối đa 50 ký tự");
+        }
+        if (voucher.getDiscountType() == null) {
+            throw new RuntimeException("Loại giảm giá không được để trống");
+        }
+        if (voucher.getDiscountValue() == null || voucher.getDiscountValue().signum() <= 0) {
+            throw new RuntimeException("Giá trị giảm phải lớn hơn 0");
+        }
+        if (voucher.getDiscountType() == Voucher.DiscountType.PERCENTAGE
+                && voucher.getDiscountValue().compareTo(BigDecimal.valueOf(100)) > 0) {
+            throw new RuntimeException("Giảm theo phần trăm tối đa 100%");
+        }
+        if (voucher.getMinOrderAmount() != null && voucher.getMinOrderAmount().signum() < 0
+                || voucher.getMaxDiscountAmount() != null && voucher.getMaxDiscountAmount().signum() < 0) {
+            throw new RuntimeException("Giá trị đơn tối thiểu / giảm tối đa không được âm");
+        }
+        if (voucher.getQuantity() == null || voucher.getQuantity() < 1) {
+            throw new RuntimeException("Số lượt dùng của mỗi mã phải lớn hơn 0");
+        }
+        if (voucher.getStartDate() == null || voucher.getEndDate() == null) {
+            throw new RuntimeException("Ngày bắt đầu và ngày kết thúc không được để trống");
+        }
+        if (voucher.getEndDate().isBefore(voucher.getStartDate())) {
+            throw new RuntimeException("Ngày kết thúc phải sau ngày bắt đầu");
+        }
+        if (voucher.getDescription() != null && voucher.getDescription().length() > 500) {
+            throw new RuntimeException("Mô tả tối đa 500 ký tự");
+        }
+    }
+
+    private String randomCode(int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = CODE_ALPHABET[random.nextInt(CODE_ALPHABET.length)];
+        }
+        return new String(chars);
+    }
+
+    private static Voucher copyWithCode(Voucher rules, String code) {
+        Voucher voucher = new Voucher(code, rules.getDiscountType(), rules.getDiscountValue());
+        voucher.setDescription(rules.getDescription());
+        voucher.setMinOrderAmount(rules.getMinOrderAmount());
+        voucher.setMaxDiscountAmount(rules.getMaxDiscountAmount());
+        voucher.setQuantity(rules.getQuantity());
+        voucher.setStartDate(rules.getStartDate());
+        voucher.setEndDate(rules.getEndDate());
+        voucher.setCampaign(rules.getCampaign());
+        return voucher;
+    }
+
+    private static String normalizeCampaign(String campaign) {
+        if (campaign == null || campaign.isBlank()) {
+            return null;
+        }
+        String trimmed = campaign.trim();
+        if (trimmed.length() > 50) {
+            throw new RuntimeException("Tên đợt phát hành tối đa 50 ký tự");
+        }
+        return trimmed;
+    }
+
+    private static void addError(VoucherBulkResponse response, String error) {
+        if (response.getErrors().size() < MAX_REPORTED_ERRORS) {
+            response.getErrors().add(error);
+        }
+    }
+
+    private static String value(List<String> values, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static BigDecimal decimal(List<String> values, Map<String, Integer> columns, String column) {
+        String value = value(values, columns, column);
+        try {
+            return value != null ? new BigDecimal(value) : null;
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(column + " không phải số: " + value);
+        }
+    }
+
+    private static LocalDateTime dateTime(List<String> values, Map<String, Integer> columns, String column,
+            boolean endOfDay) {
+        String value = value(values, columns, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            if (value.length() == 10) {
+                LocalDate date = LocalDate.parse(value);
+                return endOfDay ? date.atTime(LocalTime.of(23, 59, 59)) : date.atStartOfDay();
+            }
+            return LocalDateTime.parse(value.replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException(column + " không đúng định dạng yyyy-MM-dd [HH:mm[:ss]]: " + value);
+        }
+    }
+
+    /**
+     * Tách một dòng CSV (hỗ trợ giá trị trong "..." và "" là dấu nháy)
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
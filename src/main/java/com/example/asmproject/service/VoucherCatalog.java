@@ -0,0 +1,164 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.model.Voucher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Danh mục voucher trong bộ nhớ (bất biến)
+ *
+ * - Giữ các voucher ACTIVE chưa hết hạn tại thời điểm nạp, kể cả voucher chưa tới ngày bắt đầu
+ * - "Đang dùng được" = startDate <= now <= endDate và usedCount < quantity (giống VoucherRepository),
+ *   sắp theo minOrderAmount tăng dần (null coi như 0)
+ * - Voucher áp dụng được cho số tiền X là một đoạn đầu của danh sách: tìm nhị phân vị trí cuối
+ *   có minOrderAmount <= X
+ * - validUntil là mốc cửa sổ gần nhất (một voucher bắt đầu hoặc hết hạn); qua mốc đó gọi at(now)
+ *   để tính lại danh sách từ dữ liệu đã nạp, không cần truy vấn database
+ * - Chỉ gồm voucher công khai: voucher thuộc đợt phát hành (campaign) không được nạp,
+ *   VoucherService tra các mã đó trực tiếp trong database
+ * - Các voucher trả ra là bản sao tách khỏi persistence context (không có danh sách orders),
+ *   an toàn khi dùng chung giữa các request
+ */
+public final class VoucherCatalog {
+
+    private static final Comparator<Voucher> BY_MIN_ORDER_AMOUNT =
+            Comparator.comparing(VoucherCatalog::minOrderAmount).thenComparing(Voucher::getId);
+
+    private final List<Voucher> loaded;
+    private final List<Voucher> usable;
+    private final BigDecimal[] minOrderAmounts;
+    private final Map<String, Voucher> usableByCode;
+    private final LocalDateTime validUntil;
+
+    private VoucherCatalog(List<Voucher> loaded, LocalDateTime now) {
+        this.loaded = loaded;
+
+        List<Voucher> current = new ArrayList<>();
+        Map<String, Voucher> byCode = new HashMap<>();
+        LocalDateTime nextBoundary = null;
+        for (Voucher voucher : loaded) {
+            if (voucher.getStartDate().isAfter(now)) {
+                nextBoundary = earliest(nextBoundary, voucher.getStartDate());
+            } else if (!voucher.getEndDate().isBefore(now)) {
+                nextBoundary = earliest(nextBoundary, voucher.getEndDate().plusNanos(1));
+                if (voucher.getUsedCount() < voucher.getQuantity()) {
+                    byCode.put(normalizeCode(voucher.getCode()), voucher);
+                    current.add(voucher);
+                }
+            }
+        }
+        current.sort(BY_MIN_ORDER_AMOUNT);
+
+        this.usable = Collections.unmodifiableList(current);
+        this.minOrderAmounts = new BigDecimal[current.size()];
+        for (int i = 0; i < current.size(); i++) {
+            minOrderAmounts[i] = minOrderAmount(current.get(i));
+        }
+        this.usableByCode = byCode;
+        this.validUntil = nextBoundary != null ? nextBoundary : LocalDateTime.MAX;
+    }
+
+    /**
+     * Tạo danh mục từ các voucher đọc từ database (chỉ giữ voucher công khai ACTIVE chưa hết hạn)
+     */
+    public static VoucherCatalog load(List<Voucher> vouchers, LocalDateTime now) {
+        List<Voucher> loaded = new ArrayList<>();
+        for (Voucher voucher : vouchers) {
+            if (voucher.getStatus() == Voucher.VoucherStatus.ACTIVE && voucher.getCampaign() == null
+                    && voucher.getStartDate() != null
+                    && voucher.getEndDate() != null && !voucher.getEndDate().isBefore(now)) {
+                loaded.add(detachedCopy(voucher));
+            }
+        }
+        return new VoucherCatalog(Collections.unmodifiableList(loaded), now);
+    }
+
+    /**
+     * Danh mục đúng tại thời điểm now: chính nó nếu chưa qua mốc cửa sổ, ngược lại tính lại từ dữ liệu đã nạp
+     */
+    public VoucherCatalog at(LocalDateTime now) {
+        return now.isBefore(validUntil) ? this : new VoucherCatalog(loaded, now);
+    }
+
+    /**
+     * Các voucher đang dùng được, theo minOrderAmount tăng dần
+     */
+    public List<Voucher> getUsable() {
+        return usable;
+    }
+
+    /**
+     * Các voucher đang dùng được cho đơn hàng có giá trị orderAmount
+     */
+    public List<Voucher> getApplicable(BigDecimal orderAmount) {
+        return usable.subList(0, countApplicable(orderAmount));
+    }
+
+    /**
+     * Voucher đang dùng được theo mã (không phân biệt hoa thường, giống collation của SQL Server)
+     */
+    public Voucher findUsable(String code) {
+        return code == null ? null : usableByCode.get(normalizeCode(code));
+    }
+
+    public LocalDateTime getValidUntil() {
+        return validUntil;
+    }
+
+    /**
+     * Số voucher có minOrderAmount <= orderAmount (tìm nhị phân)
+     */
+    private int countApplicable(BigDecimal orderAmount) {
+        int lo = 0;
+        int hi = minOrderAmounts.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (minOrderAmounts[mid].compareTo(orderAmount) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static BigDecimal minOrderAmount(Voucher voucher) {
+        return voucher.getMinOrderAmount() != null ? voucher.getMinOrderAmount() : BigDecimal.ZERO;
+    }
+
+    private static String normalizeCode(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static LocalDateTime earliest(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isBefore(current) ? candidate : current;
+    }
+
+    /**
+     * Bản sao không gắn với persistence context (không có danh sách orders)
+     */
+    static Voucher detachedCopy(Voucher source) {
+        Voucher copy = new Voucher(source.getCode(), source.getDiscountType(), source.getDiscountValue());
+        copy.setId(source.getId());
+        copy.setDescription(source.getDescription());
+        copy.setMinOrderAmount(source.getMinOrderAmount());
+        copy.setMaxDiscountAmount(source.getMaxDiscountAmount());
+        copy.setQuantity(source.getQuantity());
+        copy.setUsedCount(source.getUsedCount());
+        copy.setStartDate(source.getStartDate());
+        copy.setEndDate(source.getEndDate());
+        copy.setStatus(source.getStatus());
+        copy.setCampaign(source.getCampaign());
+        copy.setCreatedAt(source.getCreatedAt());
+        copy.setUpdatedAt(source.getUpdatedAt());
+        return copy;
+    }
+}
@@ -2,22 +2,48 @@ package com.example.asmproject.service;
 
 import com.example.asmproject.model.Voucher;
 import com.example.asmproject.repository.VoucherRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Service voucher
+ *
+ * Các truy vấn "voucher đang dùng được" (trang giỏ hàng gọi lại mỗi khi tổng tiền thay đổi) đọc từ
+ * VoucherCatalog trong bộ nhớ; danh mục được nạp lại sau khi voucher được lưu / xóa / dùng,
+ * và tự tính lại khi tới mốc bắt đầu hoặc hết hạn của một voucher.
+ *
+ * Danh mục chỉ gồm voucher công khai. Mã thuộc đợt phát hành (campaign, có thể hàng trăm nghìn mã
+ * dùng 1 lần) tra trực tiếp theo mã qua unique index, nên dùng một mã campaign không làm nạp lại danh mục.
+ */
 @Service
 public class VoucherService {
 
+    private static final Logger log = LoggerFactory.getLogger(VoucherService.class);
+
     @Autowired
     private VoucherRepository voucherRepository;
 
+    private volatile VoucherCatalog catalog;
+
+    // Tăng mỗi lần bỏ danh mục: lần nạp bắt đầu trước đó không được ghi đè bằng dữ liệu cũ
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    private final Object catalogLock = new Object();
+
     public List<Voucher> getAllVouchers() {
         return voucherRepository.findAll();
     }
@@ -41,11 +67,65 @@ public class VoucherService {
     }
 
     public Voucher saveVoucher(Voucher voucher) {
-        return voucherRepository.save(voucher);
+        reactivateIfUsable(voucher);
+        Voucher saved = voucherRepository.save(voucher);
+        invalidateCatalog();
+        return saved;
+    }
+
+    /**
+     * Voucher EXPIRED (do job quét chuyển) được sửa lại thời hạn / số lượng còn dùng được thì ACTIVE lại,
+     * nếu không admin gia hạn voucher cũng không có tác dụng
+     */
+    private void reactivateIfUsable(Voucher voucher) {
+        if (voucher.getStatus() == Voucher.VoucherStatus.EXPIRED
+                && voucher.getEndDate() != null && !voucher.getEndDate().isBefore(LocalDateTime.now())
+                && voucher.getQuantity() != null && voucher.getUsedCount() != null
+                && voucher.getUsedCount() < voucher.getQuantity()) {
+            voucher.setStatus(Voucher.VoucherStatus.ACTIVE);
+        }
     }
 
     public void deleteVoucher(Long id) {
         voucherRepository.deleteById(id);
+        invalidateCatalog();
+    }
+
+    /**
+     * Bỏ danh mục voucher trong bộ nhớ (gọi sau khi voucher thay đổi, kể cả usedCount khi đặt hàng).
+     * Trong transaction thì bỏ thêm lần nữa sau commit để không giữ dữ liệu nạp trước khi commit.
+     */
+    public void invalidateCatalog() {
+        dropCatalog();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dropCatalog();
+                }
+            });
+        }
+    }
+
+    /**
+     * Sau khi một đơn hàng dùng voucher: chỉ voucher công khai nằm trong danh mục nên chỉ khi đó mới nạp lại
+     */
+    public void onVoucherRedeemed(Voucher voucher) {
+        if (voucher.getCampaign() == null) {
+            invalidateCatalog();
+        }
+    }
+
+    /**
+     * Quét định kỳ: voucher đã hết hạn hoặc hết lượt chuyển sang EXPIRED (một câu UPDATE)
+     */
+    @Scheduled(fixedDelayString = "${app.vouchers.sweep-interval-ms:300000}")
+    public void expireFinishedVouchers() {
+        int expired = voucherRepository.expireFinished(LocalDateTime.now());
+        if (expired > 0) {
+            log.info("Đã chuyển {} voucher hết hạn / hết lượt sang EXPIRED", expired);
+            invalidateCatalog();
+        }
     }
 
     /**
@@ -61,27 +141,96 @@ public class VoucherService {
      * Để hiển thị cho người dùng tham khảo
      */
     public List<Voucher> getAvailableVouchers() {
-        return voucherRepository.findAvailableVouchers(LocalDateTime.now());
+        return getCatalog().getUsable();
     }
 
     /**
      * Lấy danh sách các voucher hợp lệ cho một giá trị đơn hàng cụ thể
      */
     public List<Voucher> getValidVouchersForOrder(BigDecimal orderAmount) {
-        return voucherRepository.findValidVouchersForOrder(LocalDateTime.now(), orderAmount);
+        return getCatalog().getApplicable(orderAmount);
     }
 
     /**
      * Kiểm tra tính hợp lệ của một voucher cụ thể
      */
     public boolean isValidVoucher(String code, BigDecimal orderAmount) {
-        Optional<Voucher> voucherOpt = voucherRepository.findByCode(code);
-        if (voucherOpt.isPresent()) {
-            Voucher voucher = voucherOpt.get();
-            return voucher.isValid() &&
-                    (voucher.getMinOrderAmount() == null ||
-                            orderAmount.compareTo(voucher.getMinOrderAmount()) >= 0);
+        Voucher voucher = findUsableVoucher(code);
+        return voucher != null &&
+                (voucher.getMinOrderAmount() == null ||
+                        orderAmount.compareTo(voucher.getMinOrderAmount()) >= 0);
+    }
+
+    /**
+     * Voucher giảm nhiều nhất cho đơn hàng có giá trị orderAmount (theo Voucher.calculateDiscount),
+     * null nếu không có voucher nào áp dụng được.
+     * Chỉ tính trên đoạn voucher thỏa minOrderAmount của danh mục: O(log n + k) với k voucher áp dụng được.
+     * Bằng nhau thì giữ voucher có đơn tối thiểu thấp hơn (đứng trước trong danh mục).
+     */
+    public Voucher getBestVoucherForOrder(BigDecimal orderAmount) {
+        Voucher best = null;
+        BigDecimal bestDiscount = BigDecimal.ZERO;
+        for (Voucher voucher : getCatalog().getApplicable(orderAmount)) {
+            BigDecimal discount = voucher.calculateDiscount(orderAmount);
+            if (discount.compareTo(bestDiscount) > 0) {
+                best = voucher;
+                bestDiscount = discount;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Voucher đang dùng được theo mã, null nếu không có:
+     * voucher công khai lấy từ danh mục trong bộ nhớ, mã campaign tra database theo unique index
+     */
+    public Voucher findUsableVoucher(String code) {
+        if (code == null || code.isBlank()) {
+            return null;
+        }
+        Voucher voucher = getCatalog().findUsable(code);
+        if (voucher != null) {
+            return voucher;
+        }
+        return voucherRepository.findActiveByCode(code.trim().toUpperCase(Locale.ROOT)).map(VoucherCatalog::detachedCopy).orElse(null);
+    }
+
+    /**
+     * Danh mục voucher đúng tại thời điểm hiện tại: nạp từ database nếu chưa có,
+     * tính lại trong bộ nhớ nếu đã qua mốc bắt đầu / hết hạn của một voucher
+     */
+    private VoucherCatalog getCatalog() {
+        LocalDateTime now = LocalDateTime.now();
+        // Đọc version trước catalog: dropCatalog xảy ra sau đó sẽ làm lệch version
+        long version = catalogVersion.get();
+        VoucherCatalog current = catalog;
+        if (current == null) {
+            // Một luồng nạp, các luồng khác chờ và dùng kết quả đó
+            synchronized (catalogLock) {
+                current = catalog;
+                if (current == null) {
+                    version = catalogVersion.get();
+                    current = VoucherCatalog.load(voucherRepository.findPublicActiveNotExpired(now), now);
+                    if (catalogVersion.get() == version) {
+                        catalog = current;
+                    }
+                }
+            }
+        } else if (!now.isBefore(current.getValidUntil())) {
+            VoucherCatalog old = current;
+            current = old.at(now);
+            // Chỉ thay bản cũ khi chưa bị dropCatalog hoặc luồng khác thay trước
+            synchronized (catalogLock) {
+                if (catalog == old && catalogVersion.get() == version) {
+                    catalog = current;
+                }
+            }
         }
-        return false;
+        return current;
+    }
+
+    private void dropCatalog() {
+        catalogVersion.incrementAndGet();
+        catalog = null;
     }
 }
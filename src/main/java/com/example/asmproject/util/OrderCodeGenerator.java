@@ -0,0 +1,310 @@
+package com.example.asmproject.util;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sinh mã đơn hàng duy nhất, ngắn và sắp xếp được theo thời gian (kiểu Snowflake)
+ *
+ * Cấu trúc 63 bit: [41 bit mili-giây từ EPOCH][10 bit node][12 bit sequence]
+ * - Sinh mã không truy vấn database: job gia hạn lease ghi trước mốc thời gian được dùng
+ * - Trong cùng 1 ms mỗi node sinh được 4096 mã; hết sequence thì "mượn" ms kế tiếp
+ *   (đồng hồ logic), nên không bao giờ phải chờ và không trùng kể cả khi đồng hồ lùi
+ *
+ * Node id (0..1023) được thuê (lease) từ bảng order_code_nodes nên hai instance đang chạy
+ * không bao giờ dùng chung một node id:
+ * - Mặc định lấy node đầu tiên đã hết hạn thuê; app.order-code.node-id chỉ định node cố định
+ *   (khởi động lỗi nếu node đó đang được instance khác thuê)
+ * - Lease được gia hạn định kỳ; không gia hạn được quá hạn thuê thì ngừng sinh mã cho tới khi thuê lại
+ * - reserved_until lưu mốc thời gian (ms) mà node đã được phép dùng tới. Mỗi lần gia hạn lease đặt
+ *   trước app.order-code.reserve-ahead-ms phía trước, nên mã chỉ vượt mốc (và phải ghi ngay) khi
+ *   job gia hạn bị trễ. Instance thuê lại node bắt đầu từ mốc đó, nên đồng hồ lùi qua lần
+ *   khởi động lại (hoặc chuyển sang máy khác) cũng không sinh lại mã cũ
+ * - Mọi câu lệnh trên order_code_nodes chạy trong transaction riêng (REQUIRES_NEW): không bị rollback
+ *   theo đơn hàng và không giữ khóa dòng của node trong suốt transaction đặt hàng
+ *
+ * Mã được mã hóa base36 độ dài cố định 13 ký tự, thêm tiền tố "VF":
+ * ví dụ VF0K3J9Z1Q2W8E4 - so sánh chuỗi cũng cho đúng thứ tự thời gian.
+ */
+@Component
+public class OrderCodeGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderCodeGenerator.class);
+
+    private static final String PREFIX = "VF";
+
+    // 2024-01-01T00:00:00Z
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final int CODE_LENGTH = 13; // Long.MAX_VALUE base36 = 13 ký tự
+    private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+
+    private static final String FIND_FREE_SQL =
+            "SELECT node_id FROM order_code_nodes " +
+            "WHERE lease_expires_at IS NULL OR lease_expires_at < CURRENT_TIMESTAMP ORDER BY node_id";
+
+    // Chỉ thành công khi node chưa bị thuê, đã hết hạn thuê, hoặc đang do chính instance này thuê
+    private static final String CLAIM_SQL =
+            "UPDATE order_code_nodes SET instance_id = ?, lease_expires_at = DATEADD(SECOND, ?, CURRENT_TIMESTAMP) " +
+            "WHERE node_id = ? AND (instance_id = ? OR lease_expires_at IS NULL OR lease_expires_at < CURRENT_TIMESTAMP)";
+
+    private static final String RESERVED_UNTIL_SQL =
+            "SELECT reserved_until FROM order_code_nodes WHERE node_id = ?";
+
+    private static final String RENEW_SQL =
+            "UPDATE order_code_nodes SET lease_expires_at = DATEADD(SECOND, ?, CURRENT_TIMESTAMP), " +
+            "reserved_until = CASE WHEN reserved_until < ? THEN ? ELSE reserved_until END " +
+            "WHERE node_id = ? AND instance_id = ?";
+
+    private static final String RESERVE_SQL =
+            "UPDATE order_code_nodes SET reserved_until = ? " +
+            "WHERE node_id = ? AND instance_id = ? AND reserved_until < ?";
+
+    private static final String RELEASE_SQL =
+            "UPDATE order_code_nodes SET instance_id = NULL, lease_expires_at = NULL " +
+            "WHERE node_id = ? AND instance_id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Transaction riêng cho các câu lệnh trên order_code_nodes
+    private TransactionTemplate leaseTransaction;
+
+    private final long configuredNodeId;
+    private final long leaseSeconds;
+    private final long reserveAheadMs;
+    private final String instanceId;
+
+    private volatile Lease lease;
+
+    public OrderCodeGenerator(@Value("${app.order-code.node-id:-1}") long configuredNodeId,
+            @Value("${app.order-code.lease-seconds:60}") long leaseSeconds,
+            @Value("${app.order-code.reserve-ahead-ms:60000}") long reserveAheadMs) {
+        if (configuredNodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.order-code.node-id phải nằm trong khoảng 0.." + MAX_NODE_ID);
+        }
+        this.configuredNodeId = configuredNodeId;
+        this.leaseSeconds = leaseSeconds;
+        // Phải lớn hơn chu kỳ gia hạn (app.order-code.heartbeat-ms) để nextCode không phải ghi database
+        this.reserveAheadMs = reserveAheadMs;
+        this.instanceId = instanceId();
+    }
+
+    @PostConstruct
+    public void init() {
+        leaseTransaction = new TransactionTemplate(transactionManager);
+        leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        synchronized (this) {
+            lease = acquire();
+        }
+        log.info("Sinh mã đơn hàng với node id {} (instance {})", lease.nodeId, instanceId);
+    }
+
+    /**
+     * Sinh mã đơn hàng mới (thread-safe, lock-free; chỉ ghi database khi job gia hạn bị trễ)
+     *
+     * @return Mã đơn hàng dạng "VF" + 13 ký tự base36
+     */
+    public String nextCode() {
+        return encode(nextId());
+    }
+
+    /**
+     * Sinh id 63 bit tăng dần theo thời gian
+     */
+    public long nextId() {
+        Lease current = lease;
+        if (current == null || System.nanoTime() - current.validUntilNanos > 0) {
+            throw new RuntimeException("Không sinh được mã đơn hàng: chưa gia hạn được node id, vui lòng thử lại sau");
+        }
+        while (true) {
+            long prev = current.state.get();
+            long now = currentMillis() << SEQUENCE_BITS;
+            // Nếu cùng ms (hoặc đồng hồ lùi) thì tăng sequence; tràn sequence sẽ tự cộng sang ms kế tiếp
+            long next = Math.max(now, prev + 1);
+            if (current.state.compareAndSet(prev, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                if (timestamp >= current.reservedUntil) {
+                    reserve(current, timestamp);
+                }
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (current.nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    public long getNodeId() {
+        Lease current = lease;
+        return current != null ? current.nodeId : -1;
+    }
+
+    /**
+     * Gia hạn lease định kỳ (1/3 thời gian thuê) và đặt trước reserved_until cho chu kỳ tới;
+     * mất lease (bị instance khác lấy sau khi hết hạn) thì thuê node mới
+     */
+    @Scheduled(fixedDelayString = "${app.order-code.heartbeat-ms:20000}")
+    public synchronized void renewLease() {
+        Lease current = lease;
+        try {
+            long startedAt = System.nanoTime();
+            if (current != null) {
+                long reservedUntil = Math.max(currentMillis(), current.state.get() >>> SEQUENCE_BITS) + reserveAheadMs;
+                Integer renewed = leaseTransaction.execute(status -> jdbcTemplate.update(RENEW_SQL,
+                        leaseSeconds, reservedUntil, reservedUntil, current.nodeId, instanceId));
+                if (renewed != null && renewed == 1) {
+                    current.validUntilNanos = startedAt + TimeUnit.SECONDS.toNanos(leaseSeconds);
+                    current.advanceReservedUntil(reservedUntil);
+                    return;
+                }
+            }
+            log.warn("Mất lease node id {}, thuê lại node id", current != null ? current.nodeId : null);
+            lease = acquire();
+            log.info("Sinh mã đơn hàng với node id {} (instance {})", lease.nodeId, instanceId);
+        } catch (RuntimeException e) {
+            log.error("Không gia hạn được lease node id", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void release() {
+        Lease current = lease;
+        lease = null;
+        if (current != null) {
+            try {
+                leaseTransaction.execute(status -> jdbcTemplate.update(RELEASE_SQL, current.nodeId, instanceId));
+            } catch (RuntimeException e) {
+                log.warn("Không trả được lease node id {}: {}", current.nodeId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Thuê node id (node cấu hình sẵn, hoặc node trống đầu tiên), khôi phục mốc thời gian đã dùng
+     * và đặt trước reserved_until cho chu kỳ đầu
+     */
+    private Lease acquire() {
+        Lease acquired = leaseTransaction.execute(status -> tryAcquire());
+        if (acquired != null) {
+            return acquired;
+        }
+        if (configuredNodeId >= 0) {
+            throw new RuntimeException("Node id " + configuredNodeId + " (app.order-code.node-id) đang được instance khác sử dụng "
+                    + "hoặc chưa có trong bảng order_code_nodes; hãy cấu hình node id khác cho mỗi instance");
+        }
+        throw new RuntimeException("Không còn node id trống trong bảng order_code_nodes (tối đa " + (MAX_NODE_ID + 1) + " instance)");
+    }
+
+    private Lease tryAcquire() {
+        long startedAt = System.nanoTime();
+        List<Long> candidates = configuredNodeId >= 0
+                ? List.of(configuredNodeId)
+                : jdbcTemplate.queryForList(FIND_FREE_SQL, Long.class);
+        for (Long nodeId : candidates) {
+            if (jdbcTemplate.update(CLAIM_SQL, instanceId, leaseSeconds, nodeId, instanceId) == 1) {
+                Long stored = jdbcTemplate.queryForObject(RESERVED_UNTIL_SQL, Long.class, nodeId);
+                long usedUntil = stored != null ? stored : 0L;
+                long reservedUntil = Math.max(currentMillis(), usedUntil) + reserveAheadMs;
+                jdbcTemplate.update(RESERVE_SQL, reservedUntil, nodeId, instanceId, reservedUntil);
+                return new Lease(nodeId, usedUntil, reservedUntil, startedAt + TimeUnit.SECONDS.toNanos(leaseSeconds));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Job gia hạn bị trễ: ghi mốc reserved_until mới (transaction riêng) trước khi trả ra mã
+     * có timestamp vượt mốc cũ
+     */
+    private void reserve(Lease current, long timestamp) {
+        synchronized (current) {
+            if (timestamp < current.reservedUntil) {
+                return;
+            }
+            long reservedUntil = timestamp + reserveAheadMs;
+            Integer updated = leaseTransaction.execute(status -> jdbcTemplate.update(RESERVE_SQL,
+                    reservedUntil, current.nodeId, instanceId, reservedUntil));
+            if (updated == null || updated != 1) {
+                throw new RuntimeException("Không sinh được mã đơn hàng: node id " + current.nodeId + " không còn thuộc instance này");
+            }
+            current.reservedUntil = reservedUntil;
+        }
+    }
+
+    private static long currentMillis() {
+        return System.currentTimeMillis() - EPOCH;
+    }
+
+    private static String encode(long id) {
+        char[] buf = new char[PREFIX.length() + CODE_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), buf, 0);
+        for (int i = buf.length - 1; i >= PREFIX.length(); i--) {
+            buf[i] = DIGITS[(int) (id % 36)];
+            id /= 36;
+        }
+        return new String(buf);
+    }
+
+    private static String instanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "localhost";
+        }
+        String pid = String.valueOf(ManagementFactory.getRuntimeMXBean().getPid());
+        String id = host + "/" + pid + "/" + UUID.randomUUID();
+        return id.length() <= 100 ? id : id.substring(id.length() - 100);
+    }
+
+    /**
+     * Node id đang thuê cùng trạng thái sinh mã của node đó
+     */
+    private static final class Lease {
+        final long nodeId;
+        // (timestamp << SEQUENCE_BITS) | sequence của mã sinh gần nhất
+        final AtomicLong state;
+        // Timestamp (ms từ EPOCH) đầu tiên chưa được ghi vào reserved_until
+        volatile long reservedUntil;
+        // Hạn thuê theo System.nanoTime() của instance này (tính từ lúc gửi câu lệnh thuê / gia hạn)
+        volatile long validUntilNanos;
+
+        Lease(long nodeId, long usedUntil, long reservedUntil, long validUntilNanos) {
+            this.nodeId = nodeId;
+            this.reservedUntil = reservedUntil;
+            this.validUntilNanos = validUntilNanos;
+            // Bắt đầu từ mốc đã dùng của lần thuê trước dù đồng hồ hiện tại có lùi
+            this.state = new AtomicLong((usedUntil << SEQUENCE_BITS) - 1);
+        }
+
+        synchronized void advanceReservedUntil(long value) {
+            if (value > reservedUntil) {
+                reservedUntil = value;
+            }
+        }
+    }
+}
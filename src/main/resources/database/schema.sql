@@ -256,11 +256,18 @@ CREATE TABLE [dbo].[orders] (
 END
 GO
 
+-- Sequence cho order_items (Hibernate pooled optimizer: INCREMENT BY = allocationSize = 50)
+-- Dùng SEQUENCE thay vì IDENTITY để INSERT order_items được gom thành JDBC batch
+IF NOT EXISTS (SELECT * FROM sys.sequences WHERE name = 'order_items_seq')
+    CREATE SEQUENCE [dbo].[order_items_seq] AS BIGINT START WITH 1 INCREMENT BY 50;
+GO
+
 -- Create Order_Items Table
 IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[order_items]') AND type in (N'U'))
 BEGIN
 CREATE TABLE [dbo].[order_items] (
-    [id] BIGINT IDENTITY(1,1) PRIMARY KEY,
+    -- DB cũ có cột id IDENTITY được chuyển đổi bằng khối migration ngay bên dưới
+    [id] BIGINT NOT NULL PRIMARY KEY DEFAULT (NEXT VALUE FOR [dbo].[order_items_seq]),
     [order_id] BIGINT NOT NULL,
     [product_id] BIGINT NOT NULL,
     [color_id] BIGINT NULL,
@@ -278,6 +285,65 @@ CREATE TABLE [dbo].[order_items] (
 END
 GO
 
+-- Migration: DB cài từ phiên bản cũ có order_items.id là IDENTITY, Hibernate không INSERT được id
+-- lấy từ order_items_seq. Chép dữ liệu sang bảng mới (id thường + DEFAULT từ sequence) trong một
+-- transaction; lỗi thì rollback và dừng script với hướng dẫn xử lý tay.
+IF COLUMNPROPERTY(OBJECT_ID(N'[dbo].[order_items]'), 'id', 'IsIdentity') = 1
+BEGIN
+    SET XACT_ABORT ON;
+    BEGIN TRY
+        BEGIN TRANSACTION;
+
+        CREATE TABLE [dbo].[order_items_migrating] (
+            [id] BIGINT NOT NULL,
+            [order_id] BIGINT NOT NULL,
+            [product_id] BIGINT NOT NULL,
+            [color_id] BIGINT NULL,
+            [product_name] NVARCHAR(255) NOT NULL,
+            [product_image] NVARCHAR(500) NULL,
+            [color_name] NVARCHAR(100) NULL,
+            [price] DECIMAL(18,2) NOT NULL,
+            [quantity] INT NOT NULL,
+            [subtotal] DECIMAL(18,2) NOT NULL
+        );
+
+        INSERT INTO [dbo].[order_items_migrating] ([id], [order_id], [product_id], [color_id], [product_name],
+            [product_image], [color_name], [price], [quantity], [subtotal])
+        SELECT [id], [order_id], [product_id], [color_id], [product_name],
+            [product_image], [color_name], [price], [quantity], [subtotal]
+        FROM [dbo].[order_items] WITH (TABLOCKX);
+
+        -- Hibernate (pooled) dùng các id trong (giá trị sequence - 50, giá trị sequence]: sequence phải bắt đầu
+        -- sau MAX(id) + 50 để không cấp trùng id của dữ liệu cũ. Chỉ đặt lại một lần ở đây, lúc chưa có
+        -- instance nào dùng sequence; chạy lại script sau đó không được lùi/nhảy sequence dưới block đã cấp
+        DECLARE @orderItemsNext BIGINT = (SELECT ISNULL(MAX([id]), 0) + 51 FROM [dbo].[order_items_migrating]);
+        IF (SELECT CAST([current_value] AS BIGINT) FROM sys.sequences WHERE [name] = 'order_items_seq') < @orderItemsNext
+            EXEC (N'ALTER SEQUENCE [dbo].[order_items_seq] RESTART WITH ' + CAST(@orderItemsNext AS NVARCHAR(20)));
+
+        DROP TABLE [dbo].[order_items];
+        EXEC sp_rename N'dbo.order_items_migrating', N'order_items';
+
+        ALTER TABLE [dbo].[order_items] ADD CONSTRAINT [PK_order_items] PRIMARY KEY ([id]);
+        ALTER TABLE [dbo].[order_items] ADD CONSTRAINT [DF_order_items_id] DEFAULT (NEXT VALUE FOR [dbo].[order_items_seq]) FOR [id];
+        ALTER TABLE [dbo].[order_items] ADD CONSTRAINT [FK_order_items_order] FOREIGN KEY ([order_id]) REFERENCES [dbo].[orders]([id]) ON DELETE CASCADE;
+        ALTER TABLE [dbo].[order_items] ADD CONSTRAINT [FK_order_items_product] FOREIGN KEY ([product_id]) REFERENCES [dbo].[products]([id]) ON DELETE NO ACTION;
+        ALTER TABLE [dbo].[order_items] ADD CONSTRAINT [FK_order_items_color] FOREIGN KEY ([color_id]) REFERENCES [dbo].[colors]([id]) ON DELETE NO ACTION;
+
+        COMMIT TRANSACTION;
+        PRINT N'Đã chuyển order_items.id từ IDENTITY sang SEQUENCE order_items_seq';
+    END TRY
+    BEGIN CATCH
+        IF @@TRANCOUNT > 0 ROLLBACK TRANSACTION;
+        DECLARE @migrationError NVARCHAR(2048) = N'Không chuyển được order_items.id từ IDENTITY sang SEQUENCE: '
+            + ERROR_MESSAGE()
+            + N'. Hãy dừng ứng dụng, sao lưu database, tạo lại bảng order_items với [id] BIGINT NOT NULL PRIMARY KEY '
+            + N'DEFAULT (NEXT VALUE FOR [dbo].[order_items_seq]), chép dữ liệu cũ sang rồi chạy lại script này.';
+        THROW 50001, @migrationError, 1;
+    END CATCH
+END
+GO
+
+
 -- Create Reviews Table
 IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[reviews]') AND type in (N'U'))
 BEGIN
@@ -321,15 +387,34 @@ IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_products_slug' AND obje
 IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_products_status' AND object_id = OBJECT_ID('dbo.products'))
     CREATE INDEX [IX_products_status] ON [dbo].[products]([status]);
 
-IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_orders_user' AND object_id = OBJECT_ID('dbo.orders'))
-    CREATE INDEX [IX_orders_user] ON [dbo].[orders]([user_id]);
+-- Tra cứu sản phẩm theo tên khi tạo đơn hàng từ API (WHERE name IN (...))
+IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_products_name' AND object_id = OBJECT_ID('dbo.products'))
+    CREATE INDEX [IX_products_name] ON [dbo].[products]([name]);
+
+-- Lịch sử đơn của khách hàng / lọc theo trạng thái, luôn sắp xếp theo created_at
+-- (index ghép thay cho IX_orders_user, IX_orders_status một cột trước đây)
+IF EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_orders_user' AND object_id = OBJECT_ID('dbo.orders'))
+    DROP INDEX [IX_orders_user] ON [dbo].[orders];
+
+IF EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_orders_status' AND object_id = OBJECT_ID('dbo.orders'))
+    DROP INDEX [IX_orders_status] ON [dbo].[orders];
 
-IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_orders_status' AND object_id = OBJECT_ID('dbo.orders'))
-    CREATE INDEX [IX_orders_status] ON [dbo].[orders]([order_status]);
+IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_orders_user_created_at' AND object_id = OBJECT_ID('dbo.orders'))
+    CREATE INDEX [IX_orders_user_created_at] ON [dbo].[orders]([user_id], [created_at]);
+
+IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_orders_status_created_at' AND object_id = OBJECT_ID('dbo.orders'))
+    CREATE INDEX [IX_orders_status_created_at] ON [dbo].[orders]([order_status], [created_at]);
 
 IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_orders_order_code' AND object_id = OBJECT_ID('dbo.orders'))
     CREATE INDEX [IX_orders_order_code] ON [dbo].[orders]([order_code]);
 
+-- Xuất báo cáo theo khoảng ngày: quét theo created_at rồi lấy order_items theo order_id
+IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_orders_created_at' AND object_id = OBJECT_ID('dbo.orders'))
+    CREATE INDEX [IX_orders_created_at] ON [dbo].[orders]([created_at]);
+
+IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_order_items_order' AND object_id = OBJECT_ID('dbo.order_items'))
+    CREATE INDEX [IX_order_items_order] ON [dbo].[order_items]([order_id]);
+
 IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_carts_user' AND object_id = OBJECT_ID('dbo.carts'))
     CREATE INDEX [IX_carts_user] ON [dbo].[carts]([user_id]);
 
@@ -516,4 +601,203 @@ BEGIN
     -- Hải Phòng
     (N'Trạm sạc VinFast Hồng Bàng', N'456 Đường Lạch Tray, Phường Đằng Giang, Quận Ngô Quyền', 20.8449, 106.6881, 14, 22, '0225123456', '24/7', 'ACTIVE', N'Hải Phòng', N'Ngô Quyền', GETDATE(), GETDATE());
 END
-GO
\ No newline at end of file
+GO
+
+-- =============================================
+-- 5. TỒN KHO THEO MÀU (product_colors là nguồn dữ liệu gốc)
+-- =============================================
+
+-- Không cho phép tồn kho theo màu âm
+IF NOT EXISTS (SELECT * FROM sys.check_constraints WHERE name = 'CK_product_colors_quantity')
+    ALTER TABLE [dbo].[product_colors] ADD CONSTRAINT [CK_product_colors_quantity] CHECK ([quantity] >= 0);
+GO
+
+-- Đồng bộ một lần products.quantity = tổng tồn kho các màu (chỉ sản phẩm có màu)
+UPDATE p
+SET p.[quantity] = pc.[total]
+FROM [dbo].[products] p
+INNER JOIN (
+    SELECT [product_id], SUM([quantity]) AS [total]
+    FROM [dbo].[product_colors]
+    GROUP BY [product_id]
+) pc ON pc.[product_id] = p.[id];
+GO
+
+-- =============================================
+-- 6. IDEMPOTENCY KEY CHO API ĐẶT HÀNG
+-- =============================================
+
+-- Create Idempotency Keys Table
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[idempotency_keys]') AND type in (N'U'))
+BEGIN
+CREATE TABLE [dbo].[idempotency_keys] (
+    [id] BIGINT IDENTITY(1,1) PRIMARY KEY,
+    -- email người dùng + ':' + giá trị header Idempotency-Key
+    [idempotency_key] NVARCHAR(300) NOT NULL UNIQUE,
+    [status] NVARCHAR(20) NOT NULL DEFAULT 'IN_PROGRESS',
+    [response_status] INT NULL,
+    [response_body] NVARCHAR(MAX) NULL,
+    [created_at] DATETIME NOT NULL DEFAULT GETDATE(),
+    [expires_at] DATETIME NOT NULL,
+    CONSTRAINT [CK_idempotency_keys_status] CHECK ([status] IN ('IN_PROGRESS', 'COMPLETED'))
+);
+END
+GO
+
+IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_idempotency_keys_expires_at' AND object_id = OBJECT_ID('dbo.idempotency_keys'))
+    CREATE INDEX [IX_idempotency_keys_expires_at] ON [dbo].[idempotency_keys]([expires_at]);
+GO
+
+-- =============================================
+-- 7. OUTBOX SỰ KIỆN SAU KHI ĐẶT HÀNG
+-- =============================================
+
+-- Create Outbox Events Table
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[outbox_events]') AND type in (N'U'))
+BEGIN
+CREATE TABLE [dbo].[outbox_events] (
+    [id] BIGINT IDENTITY(1,1) PRIMARY KEY,
+    [event_type] NVARCHAR(50) NOT NULL,
+    [aggregate_id] BIGINT NOT NULL,
+    [payload] NVARCHAR(MAX) NULL,
+    [status] NVARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    [attempts] INT NOT NULL DEFAULT 0,
+    [last_error] NVARCHAR(1000) NULL,
+    [next_attempt_at] DATETIME NOT NULL DEFAULT GETDATE(),
+    [locked_at] DATETIME NULL,
+    [created_at] DATETIME NOT NULL DEFAULT GETDATE(),
+    [processed_at] DATETIME NULL,
+    CONSTRAINT [CK_outbox_events_status] CHECK ([status] IN ('PENDING', 'PROCESSING', 'DONE', 'FAILED'))
+);
+END
+GO
+
+-- Job quét outbox chỉ đọc các sự kiện PENDING đến hạn
+IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_outbox_events_status_next' AND object_id = OBJECT_ID('dbo.outbox_events'))
+    CREATE INDEX [IX_outbox_events_status_next] ON [dbo].[outbox_events]([status], [next_attempt_at]);
+GO
+
+-- Listener đã xử lý xong sự kiện (OutboxService bỏ qua khi thử lại)
+IF COL_LENGTH('dbo.outbox_events', 'completed_listeners') IS NULL
+    ALTER TABLE [dbo].[outbox_events] ADD [completed_listeners] NVARCHAR(1000) NULL;
+GO
+
+-- =============================================
+-- 8. BẢNG TỔNG HỢP DOANH SỐ THEO NGÀY
+-- =============================================
+
+-- Create Daily Sales Table (ngày đặt hàng x trạng thái x phương thức giao hàng)
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[daily_sales]') AND type in (N'U'))
+BEGIN
+CREATE TABLE [dbo].[daily_sales] (
+    [id] BIGINT IDENTITY(1,1) PRIMARY KEY,
+    [sales_date] DATE NOT NULL,
+    [order_status] NVARCHAR(20) NOT NULL,
+    [delivery_method] NVARCHAR(50) NOT NULL,
+    [order_count] BIGINT NOT NULL DEFAULT 0,
+    [revenue] DECIMAL(18,2) NOT NULL DEFAULT 0,
+    [discount] DECIMAL(18,2) NOT NULL DEFAULT 0,
+    [shipping_fee] DECIMAL(18,2) NOT NULL DEFAULT 0,
+    [updated_at] DATETIME NOT NULL DEFAULT GETDATE(),
+    -- Unique index cũng là index cho truy vấn theo khoảng ngày
+    CONSTRAINT [UQ_daily_sales_bucket] UNIQUE ([sales_date], [order_status], [delivery_method])
+);
+END
+GO
+
+-- Khởi tạo dữ liệu tổng hợp từ các đơn hàng hiện có (chỉ chạy khi bảng còn trống)
+IF NOT EXISTS (SELECT 1 FROM [dbo].[daily_sales])
+    INSERT INTO [dbo].[daily_sales] ([sales_date], [order_status], [delivery_method], [order_count], [revenue], [discount], [shipping_fee], [updated_at])
+    SELECT CAST([created_at] AS DATE), [order_status], [delivery_method], COUNT(*), SUM([total]), SUM([discount]), SUM([shipping_fee]), GETDATE()
+    FROM [dbo].[orders]
+    GROUP BY CAST([created_at] AS DATE), [order_status], [delivery_method];
+GO
+
+
+-- =============================================
+-- 9. BẢNG TỔNG HỢP DOANH SỐ THEO SẢN PHẨM
+-- =============================================
+
+-- Create Product Daily Sales Table (ngày đặt hàng x sản phẩm x màu, không gồm đơn hủy / trả hàng)
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[product_daily_sales]') AND type in (N'U'))
+BEGIN
+CREATE TABLE [dbo].[product_daily_sales] (
+    [id] BIGINT IDENTITY(1,1) PRIMARY KEY,
+    [sales_date] DATE NOT NULL,
+    [product_id] BIGINT NOT NULL,
+    -- 0 = dòng sản phẩm không chọn màu
+    [color_id] BIGINT NOT NULL DEFAULT 0,
+    [quantity] BIGINT NOT NULL DEFAULT 0,
+    [revenue] DECIMAL(18,2) NOT NULL DEFAULT 0,
+    [order_count] BIGINT NOT NULL DEFAULT 0,
+    [updated_at] DATETIME NOT NULL DEFAULT GETDATE(),
+    CONSTRAINT [UQ_product_daily_sales_bucket] UNIQUE ([sales_date], [product_id], [color_id])
+);
+END
+GO
+
+-- Thống kê theo màu của một sản phẩm
+IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_product_daily_sales_product' AND object_id = OBJECT_ID('dbo.product_daily_sales'))
+    CREATE INDEX [IX_product_daily_sales_product] ON [dbo].[product_daily_sales]([product_id], [sales_date]);
+GO
+
+-- Khởi tạo dữ liệu tổng hợp từ các đơn hàng hiện có (chỉ chạy khi bảng còn trống)
+IF NOT EXISTS (SELECT 1 FROM [dbo].[product_daily_sales])
+    INSERT INTO [dbo].[product_daily_sales] ([sales_date], [product_id], [color_id], [quantity], [revenue], [order_count], [updated_at])
+    SELECT CAST(o.[created_at] AS DATE), oi.[product_id], COALESCE(oi.[color_id], 0), SUM(oi.[quantity]), SUM(oi.[subtotal]), COUNT(DISTINCT o.[id]), GETDATE()
+    FROM [dbo].[order_items] oi
+    INNER JOIN [dbo].[orders] o ON o.[id] = oi.[order_id]
+    WHERE o.[order_status] NOT IN ('CANCELLED', 'RETURNED')
+    GROUP BY CAST(o.[created_at] AS DATE), oi.[product_id], COALESCE(oi.[color_id], 0);
+GO
+
+
+-- =============================================
+-- 10. VOUCHER PHÁT HÀNH HÀNG LOẠT
+-- =============================================
+
+-- Đợt phát hành (mã sinh hàng loạt / nhập CSV); NULL = voucher công khai
+IF COL_LENGTH('dbo.vouchers', 'campaign') IS NULL
+    ALTER TABLE [dbo].[vouchers] ADD [campaign] NVARCHAR(50) NULL;
+GO
+
+
+-- =============================================
+-- 11. VOUCHER HẾT HẠN / HẾT LƯỢT
+-- =============================================
+
+-- Voucher hết hạn / hết lượt được chuyển sang EXPIRED định kỳ (VoucherService.expireFinishedVouchers),
+-- nên các truy vấn voucher khả dụng chỉ quét phần ACTIVE của index này
+IF NOT EXISTS(SELECT * FROM sys.indexes WHERE name = 'IX_vouchers_status_dates' AND object_id = OBJECT_ID('dbo.vouchers'))
+    CREATE INDEX [IX_vouchers_status_dates] ON [dbo].[vouchers]([status], [end_date], [start_date]);
+GO
+
+-- Chuyển trạng thái các voucher đã hết hạn / hết lượt hiện có
+UPDATE [dbo].[vouchers] SET [status] = 'EXPIRED', [updated_at] = GETDATE()
+WHERE [status] = 'ACTIVE' AND ([end_date] < GETDATE() OR [used_count] >= [quantity]);
+GO
+
+
+-- =============================================
+-- 12. NODE ID SINH MÃ ĐƠN HÀNG
+-- =============================================
+
+-- Mỗi instance đang chạy thuê một node id (OrderCodeGenerator), reserved_until (ms từ 2024-01-01 UTC)
+-- là mốc thời gian node đã dùng tới, để instance thuê lại node không sinh trùng mã khi đồng hồ lùi
+IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[order_code_nodes]') AND type in (N'U'))
+BEGIN
+CREATE TABLE [dbo].[order_code_nodes] (
+    [node_id] INT NOT NULL PRIMARY KEY,
+    [instance_id] NVARCHAR(100) NULL,
+    [lease_expires_at] DATETIME NULL,
+    [reserved_until] BIGINT NOT NULL DEFAULT 0
+);
+END
+GO
+
+-- Node id 0..1023
+IF NOT EXISTS (SELECT 1 FROM [dbo].[order_code_nodes])
+    INSERT INTO [dbo].[order_code_nodes] ([node_id])
+    SELECT TOP (1024) ROW_NUMBER() OVER (ORDER BY (SELECT NULL)) - 1
+    FROM sys.all_objects a CROSS JOIN sys.all_objects b;
+GO
@@ -0,0 +1,71 @@
+package com.example.asmproject.repository;
+
+import com.example.asmproject.model.IdempotencyRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nhiều request gửi lại cùng một Idempotency-Key đã hết hạn: IdempotencyRecordRepository.reclaimExpired
+ * chỉ cho đúng một request giữ chỗ lại, các request khác thấy key đang IN_PROGRESS
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyRecordReclaimTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Test
+    void concurrentReclaimOfExpiredKeyHasOneWinner() throws Exception {
+        String key = "user@test.local:retry-key";
+        IdempotencyRecord expired = new IdempotencyRecord(key, LocalDateTime.now().minusMinutes(1));
+        expired.setStatus(IdempotencyRecord.Status.COMPLETED);
+        expired.setResponseStatus(200);
+        expired.setResponseBody("{}");
+        idempotencyRecordRepository.saveAndFlush(expired);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    LocalDateTime now = LocalDateTime.now();
+                    return idempotencyRecordRepository.reclaimExpired(key, now, now.plusMinutes(60));
+                }));
+            }
+            start.countDown();
+
+            int reclaimed = 0;
+            for (Future<Integer> result : results) {
+                reclaimed += result.get(60, TimeUnit.SECONDS);
+            }
+
+            assertThat(reclaimed).isEqualTo(1);
+            IdempotencyRecord record = idempotencyRecordRepository.findByKey(key).orElseThrow();
+            assertThat(record.getStatus()).isEqualTo(IdempotencyRecord.Status.IN_PROGRESS);
+            assertThat(record.getResponseBody()).isNull();
+            assertThat(record.isExpired()).isFalse();
+        } finally {
+            executor.shutdownNow();
+            idempotencyRecordRepository.deleteByKey(key);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.asmproject.repository;
+
+import com.example.asmproject.model.Voucher;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nhiều đơn hàng dùng cùng một mã voucher đồng thời: VoucherRepository.redeem (UPDATE có điều kiện)
+ * chỉ được chấp nhận đúng bằng số lượt còn lại, usedCount không vượt quantity
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VoucherRepositoryRedeemTest {
+
+    private static final int QUANTITY = 100;
+    private static final int ATTEMPTS = 300;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private VoucherRepository voucherRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentRedeemNeverExceedsQuantity() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        Voucher voucher = new Voucher("REDEEM-STRESS", Voucher.DiscountType.FIXED, new BigDecimal("10000"));
+        voucher.setQuantity(QUANTITY);
+        voucher.setStartDate(now.minusDays(1));
+        voucher.setEndDate(now.plusDays(1));
+        Long voucherId = voucherRepository.saveAndFlush(voucher).getId();
+
+        // Mỗi lượt dùng chạy trong transaction riêng, giống OrderService.createOrder
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < ATTEMPTS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return transaction.execute(status -> voucherRepository.redeem(voucherId, LocalDateTime.now()));
+                }));
+            }
+            start.countDown();
+
+            int accepted = 0;
+            for (Future<Integer> result : results) {
+                accepted += result.get(60, TimeUnit.SECONDS);
+            }
+
+            assertThat(accepted).isEqualTo(QUANTITY);
+            assertThat(voucherRepository.findById(voucherId).orElseThrow().getUsedCount()).isEqualTo(QUANTITY);
+            Integer lateRedeem = transaction.execute(status -> voucherRepository.redeem(voucherId, LocalDateTime.now()));
+            assertThat(lateRedeem).isZero();
+        } finally {
+            executor.shutdownNow();
+            voucherRepository.deleteById(voucherId);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.model.ChargingStation;
+import com.example.asmproject.repository.ChargingStationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Xây lại chỉ mục trạm (không gian + nhóm tỉnh / quận huyện) của ChargingStationService
+ */
+class ChargingStationServiceTest {
+
+    private ChargingStationRepository repository;
+    private ChargingStationService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChargingStationRepository.class);
+        LocationService locationService = mock(LocationService.class);
+        when(locationService.provinceKey(anyString())).thenAnswer(invocation -> LocationService.normalizeRegionName(invocation.getArgument(0)));
+        when(repository.save(any(ChargingStation.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service = new ChargingStationService();
+        ReflectionTestUtils.setField(service, "chargingStationRepository", repository);
+        ReflectionTestUtils.setField(service, "locationService", locationService);
+    }
+
+    @Test
+    void rebuildStartedBeforeWriteIsNotPublished() throws Exception {
+        ChargingStation first = station(1L, "Hà Nội", "Cầu Giấy");
+        ChargingStation added = station(2L, "Hà Nội", "Đống Đa");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        List<ChargingStation> rows = new ArrayList<>(List.of(first));
+        when(repository.findAllActive()).thenAnswer(invocation -> {
+            List<ChargingStation> snapshot = List.copyOf(rows);
+            if (snapshot.size() == 1) {
+                // Lần đọc đầu: dữ liệu trước khi trạm mới được lưu, xây xong sau khi lưu
+                loading.countDown();
+                written.await(10, TimeUnit.SECONDS);
+            }
+            return snapshot;
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<ChargingStation>> staleRead = executor.submit(() -> service.findByProvince("Hà Nội"));
+            assertThat(loading.await(10, TimeUnit.SECONDS)).isTrue();
+            rows.add(added);
+            service.saveStation(added);
+            written.countDown();
+
+            assertThat(staleRead.get(10, TimeUnit.SECONDS)).containsExactly(first);
+            assertThat(service.findByProvince("Hà Nội")).containsExactlyInAnyOrder(first, added);
+            assertThat(service.findByDistrict("Đống Đa")).containsExactly(added);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentMissesBuildOnce() throws Exception {
+        when(repository.findAllActive()).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return List.of(station(1L, "Hà Nội", "Cầu Giấy"));
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<ChargingStation>>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return service.findByProvince("Hà Nội");
+                }));
+            }
+            start.countDown();
+            for (Future<List<ChargingStation>> result : results) {
+                assertThat(result.get(10, TimeUnit.SECONDS)).hasSize(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(repository, times(1)).findAllActive();
+    }
+
+    private static ChargingStation station(Long id, String province, String district) {
+        ChargingStation station = new ChargingStation("Trạm " + id, "Địa chỉ " + id,
+                new BigDecimal("21.03"), new BigDecimal("105.8"));
+        station.setId(id);
+        station.setProvince(province);
+        station.setDistrict(district);
+        return station;
+    }
+}
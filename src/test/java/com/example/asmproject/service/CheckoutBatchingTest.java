@@ -0,0 +1,144 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.config.HibernateBatchConfig;
+import com.example.asmproject.model.Address;
+import com.example.asmproject.model.Color;
+import com.example.asmproject.model.Order;
+import com.example.asmproject.model.OrderItem;
+import com.example.asmproject.model.Product;
+import com.example.asmproject.model.ProductColor;
+import com.example.asmproject.model.User;
+import com.example.asmproject.repository.AddressRepository;
+import com.example.asmproject.repository.ColorRepository;
+import com.example.asmproject.repository.OrderItemRepository;
+import com.example.asmproject.repository.OrderRepository;
+import com.example.asmproject.repository.ProductColorRepository;
+import com.example.asmproject.repository.ProductRepository;
+import com.example.asmproject.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Phần ghi của OrderService.createOrder (INSERT order_items + trừ tồn kho) với đơn 1/10/50 dòng:
+ * số câu lệnh Hibernate gửi khi flush không tăng theo số dòng, và in thời gian xử lý (median)
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({ HibernateBatchConfig.class, InventoryService.class })
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CheckoutBatchingTest {
+
+    private static final Logger log = LoggerFactory.getLogger(CheckoutBatchingTest.class);
+
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AddressRepository addressRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ColorRepository colorRepository;
+
+    @Autowired
+    private ProductColorRepository productColorRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @ParameterizedTest
+    @ValueSource(ints = { 1, 10, 50 })
+    void orderItemsAreInsertedInOneBatch(int lines) {
+        User user = userRepository.save(new User("checkout-" + lines + "@test.local", "secret", "Checkout " + lines));
+        Address address = addressRepository.save(new Address(user, "Checkout " + lines, "0900000000",
+                "Hà Nội", "Cầu Giấy", "Dịch Vọng", "1 Xuân Thủy"));
+        List<Product> products = new ArrayList<>(lines);
+        List<Color> colors = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            Product product = new Product("Xe " + lines + "-" + i, "xe-" + lines + "-" + i, new BigDecimal("1000000"));
+            product.setQuantity(ROUNDS + 1);
+            product = productRepository.save(product);
+            Color color = colorRepository.save(new Color("Màu " + lines + "-" + i, "#000000"));
+            productColorRepository.save(new ProductColor(product, color, ROUNDS + 1));
+            products.add(product);
+            colors.add(color);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long[] elapsedNanos = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            int orderNo = round;
+            long[] statements = new long[2];
+            long started = System.nanoTime();
+            transaction.executeWithoutResult(status -> {
+                Order order = new Order(user, address, new BigDecimal("1000000"), new BigDecimal("1000000"));
+                order.setPaymentMethod("CASH");
+                order.setOrderCode("CHK-" + lines + "-" + orderNo);
+                order = orderRepository.save(order);
+
+                List<OrderItem> items = new ArrayList<>(lines);
+                for (int i = 0; i < lines; i++) {
+                    items.add(new OrderItem(order, products.get(i), colors.get(i), 1, new BigDecimal("1000000")));
+                }
+                statistics.clear();
+                orderItemRepository.saveAll(items);
+                inventoryService.decreaseStock(items);
+                entityManager.flush();
+                statements[0] = statistics.getPrepareStatementCount();
+                statements[1] = statistics.getEntityInsertCount();
+            });
+            elapsedNanos[round] = System.nanoTime() - started;
+
+            // Tối đa 2 lần lấy block id từ order_items_seq + 1 batch INSERT cho mọi dòng
+            assertThat(statements[1]).isEqualTo(lines);
+            assertThat(statements[0]).isLessThanOrEqualTo(3);
+        }
+
+        Arrays.sort(elapsedNanos);
+        log.info("Checkout {} dòng: median {} µs, max {} µs ({} lần)", lines,
+                elapsedNanos[ROUNDS / 2] / 1000, elapsedNanos[ROUNDS - 1] / 1000, ROUNDS);
+        for (int i = 0; i < lines; i++) {
+            assertThat(productColorRepository.findQuantity(products.get(i).getId(), colors.get(i).getId())).contains(1);
+            assertThat(productRepository.findById(products.get(i).getId()).orElseThrow().getQuantity()).isEqualTo(1);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.model.OutboxEvent;
+import com.example.asmproject.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Thử lại sự kiện outbox khi một listener lỗi
+ */
+class OutboxServiceTest {
+
+    @Test
+    void retryDoesNotRerunCompletedListeners() {
+        OutboxEvent event = new OutboxEvent(OutboxEvent.EventType.ORDER_PLACED, 42L, "{}");
+        event.setId(1L);
+        OutboxEventRepository repository = mock(OutboxEventRepository.class);
+        when(repository.findById(1L)).thenReturn(Optional.of(event));
+        when(repository.save(any(OutboxEvent.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        EmailListener email = new EmailListener();
+        FlakyStatsListener stats = new FlakyStatsListener();
+        OutboxService service = new OutboxService(1, 10, 10, 8, 5);
+        ReflectionTestUtils.setField(service, "outboxEventRepository", repository);
+        ReflectionTestUtils.setField(service, "orderEventListeners", List.of(email, stats));
+        try {
+            ReflectionTestUtils.invokeMethod(service, "process", 1L);
+            assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.PENDING);
+            assertThat(event.getAttempts()).isEqualTo(1);
+
+            ReflectionTestUtils.invokeMethod(service, "process", 1L);
+            assertThat(event.getStatus()).isEqualTo(OutboxEvent.Status.DONE);
+            assertThat(email.calls).isEqualTo(1);
+            assertThat(stats.calls).isEqualTo(2);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    static class EmailListener implements OrderEventListener {
+        int calls;
+
+        @Override
+        public void onOrderPlaced(Long orderId) {
+            calls++;
+        }
+    }
+
+    static class FlakyStatsListener implements OrderEventListener {
+        int calls;
+
+        @Override
+        public void onOrderPlaced(Long orderId) {
+            if (++calls == 1) {
+                throw new IllegalStateException("lỗi tạm thời");
+            }
+        }
+    }
+}
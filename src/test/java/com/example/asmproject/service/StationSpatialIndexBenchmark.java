@@ -0,0 +1,112 @@
+package com.example.asmproject.service;
+
+import com.example.asmproject.model.ChargingStation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmark JMH cho StationSpatialIndex với 10k và 100k trạm rải ngẫu nhiên trong lãnh thổ Việt Nam
+ *
+ * - nearest10 / withinRadius5Km: truy vấn trên chỉ mục k-d tree
+ * - linearScanNearest10: cách làm cũ (haversine cho mọi trạm, sắp xếp cả danh sách rồi lấy 10) để so sánh
+ * - build: thời gian xây lại chỉ mục sau khi trạm thay đổi
+ *
+ * Chạy: mvn test-compile rồi
+ * java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=/dev/stdout)"
+ *      com.example.asmproject.service.StationSpatialIndexBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StationSpatialIndexBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({ "10000", "100000" })
+    private int stationCount;
+
+    private List<ChargingStation> stations;
+    private StationSpatialIndex index;
+    private double[] queryLatitudes;
+    private double[] queryLongitudes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        stations = new ArrayList<>(stationCount);
+        for (int i = 0; i < stationCount; i++) {
+            ChargingStation station = new ChargingStation("Trạm " + i, "Địa chỉ " + i,
+                    BigDecimal.valueOf(random.nextDouble(8.5, 23.4)), BigDecimal.valueOf(random.nextDouble(102.1, 109.5)));
+            station.setId((long) i);
+            stations.add(station);
+        }
+        index = StationSpatialIndex.build(stations);
+
+        queryLatitudes = new double[QUERIES];
+        queryLongitudes = new double[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queryLatitudes[i] = random.nextDouble(8.5, 23.4);
+            queryLongitudes[i] = random.nextDouble(102.1, 109.5);
+        }
+    }
+
+    @Benchmark
+    public StationSpatialIndex.Hits nearest10() {
+        int i = next++ & (QUERIES - 1);
+        return index.nearest(queryLatitudes[i], queryLongitudes[i], 10);
+    }
+
+    @Benchmark
+    public StationSpatialIndex.Hits withinRadius5Km() {
+        int i = next++ & (QUERIES - 1);
+        return index.withinRadius(queryLatitudes[i], queryLongitudes[i], 5);
+    }
+
+    @Benchmark
+    public List<ChargingStation> linearScanNearest10() {
+        int i = next++ & (QUERIES - 1);
+        BigDecimal latitude = BigDecimal.valueOf(queryLatitudes[i]);
+        BigDecimal longitude = BigDecimal.valueOf(queryLongitudes[i]);
+        return stations.stream()
+                .map(station -> new StationDistance(station, station.calculateDistance(latitude, longitude)))
+                .sorted(Comparator.comparingDouble(StationDistance::distance))
+                .limit(10)
+                .map(StationDistance::station)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public StationSpatialIndex build() {
+        return StationSpatialIndex.build(stations);
+    }
+
+    private record StationDistance(ChargingStation station, double distance) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(StationSpatialIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.asmproject.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH cho OrderCodeGenerator.nextCode (một luồng và 4 luồng cùng sinh mã)
+ *
+ * Node id được thuê từ bảng order_code_nodes trên H2 in-memory; trong lúc đo không có
+ * câu lệnh database nào (reserved_until được đặt trước đủ xa).
+ *
+ * Chạy: mvn test-compile rồi
+ * java -cp "target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=/dev/stdout)"
+ *      com.example.asmproject.util.OrderCodeGeneratorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderCodeGeneratorBenchmark {
+
+    private DriverManagerDataSource dataSource;
+    private OrderCodeGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:order-code-bench;MODE=MSSQLServer;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS order_code_nodes (node_id INT NOT NULL PRIMARY KEY, "
+                + "instance_id NVARCHAR(100) NULL, lease_expires_at DATETIME NULL, reserved_until BIGINT NOT NULL DEFAULT 0)");
+        jdbcTemplate.update("MERGE INTO order_code_nodes (node_id) KEY (node_id) VALUES (0)");
+
+        generator = new OrderCodeGenerator(-1, 600, TimeUnit.MINUTES.toMillis(10));
+        ReflectionTestUtils.setField(generator, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(generator, "transactionManager", new DataSourceTransactionManager(dataSource));
+        generator.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        generator.release();
+        new JdbcTemplate(dataSource).execute("DROP TABLE order_code_nodes");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String nextCode() {
+        return generator.nextCode();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String nextCodeContended() {
+        return generator.nextCode();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(OrderCodeGeneratorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.asmproject.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Thuê node id và ghi reserved_until của OrderCodeGenerator trên H2 in-memory
+ */
+class OrderCodeGeneratorTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+
+    @BeforeEach
+    void createTable() {
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:order-code-test;MODE=MSSQLServer;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate.execute("CREATE TABLE order_code_nodes (node_id INT NOT NULL PRIMARY KEY, "
+                + "instance_id NVARCHAR(100) NULL, lease_expires_at DATETIME NULL, reserved_until BIGINT NOT NULL DEFAULT 0)");
+        for (int nodeId = 0; nodeId < 3; nodeId++) {
+            jdbcTemplate.update("INSERT INTO order_code_nodes (node_id) VALUES (?)", nodeId);
+        }
+    }
+
+    @AfterEach
+    void dropTable() {
+        jdbcTemplate.execute("DROP TABLE order_code_nodes");
+    }
+
+    @Test
+    void instancesLeaseDistinctNodes() {
+        OrderCodeGenerator first = generator(-1, 60_000);
+        OrderCodeGenerator second = generator(-1, 60_000);
+
+        assertThat(first.getNodeId()).isNotEqualTo(second.getNodeId());
+        assertThatThrownBy(() -> generator(first.getNodeId(), 60_000)).isInstanceOf(RuntimeException.class);
+
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            codes.add(first.nextCode());
+            codes.add(second.nextCode());
+        }
+        assertThat(codes).hasSize(200_000);
+    }
+
+    @Test
+    void reservationSurvivesRollbackOfCallerTransaction() {
+        // Đặt trước 1 ms: gần như mỗi mã đều phải ghi reserved_until
+        OrderCodeGenerator generator = generator(-1, 1);
+        long[] id = new long[1];
+
+        TransactionTemplate checkout = new TransactionTemplate(transactionManager);
+        checkout.execute(status -> {
+            for (int i = 0; i < 1000; i++) {
+                id[0] = generator.nextId();
+            }
+            status.setRollbackOnly();
+            return null;
+        });
+
+        Long reservedUntil = jdbcTemplate.queryForObject(
+                "SELECT reserved_until FROM order_code_nodes WHERE node_id = ?", Long.class, generator.getNodeId());
+        assertThat(reservedUntil).isGreaterThan(id[0] >>> 22);
+    }
+
+    @Test
+    void restartContinuesAfterReservedTimestamp() {
+        OrderCodeGenerator generator = generator(0, 60_000);
+        long last = generator.nextId();
+        generator.release();
+
+        // Đồng hồ "lùi" một giờ so với mốc đã lưu
+        long future = (System.currentTimeMillis() - 1704067200000L) + 3_600_000L;
+        jdbcTemplate.update("UPDATE order_code_nodes SET reserved_until = ? WHERE node_id = 0", future);
+
+        long next = generator(0, 60_000).nextId();
+        assertThat(next).isGreaterThan(last);
+        assertThat(next >>> 22).isGreaterThanOrEqualTo(future);
+    }
+
+    private OrderCodeGenerator generator(long nodeId, long reserveAheadMs) {
+        OrderCodeGenerator generator = new OrderCodeGenerator(nodeId, 60, reserveAheadMs);
+        ReflectionTestUtils.setField(generator, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(generator, "transactionManager", transactionManager);
+        generator.init();
+        return generator;
+    }
+}